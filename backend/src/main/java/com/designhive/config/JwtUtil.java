@@ -1,18 +1,35 @@
 package com.designhive.config;
 
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+// Tokens are verified with one shared parser. Verified tokens are remembered (by SHA-256 of
+// the token, never the token itself) until they expire, so a client sending the same token on
+// every request pays for signature verification once. The cache is a bounded concurrent Guava
+// cache (lock-striped, least recently used first out), so lookups on the request path do not
+// serialize on one lock.
 @Component
 public class JwtUtil {
 
@@ -22,6 +39,33 @@ public class JwtUtil {
 
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24; // 24 hours
 
+    // Immutable once built, so safe to share between request threads
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private final int maxCachedTokens;
+    private final Cache<String, VerifiedToken> verified;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong expiredEvictions = new AtomicLong();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public JwtUtil(@Value("${jwt.cache.max-entries:10000}") int maxCachedTokens) {
+        this.maxCachedTokens = Math.max(0, maxCachedTokens);
+        // No token outlives EXPIRATION_TIME, so nothing needs to stay cached longer than that
+        this.verified = CacheBuilder.newBuilder()
+                .maximumSize(this.maxCachedTokens)
+                .expireAfterWrite(EXPIRATION_TIME, TimeUnit.MILLISECONDS)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
     // ✅ Generate token
     public String generateToken(String email) {
         return Jwts.builder()
@@ -37,22 +81,68 @@ public class JwtUtil {
         return getClaims(token).getSubject();
     }
 
-    // ✅ Parse token claims
+    // ✅ Parse token claims (verified at most once while the token is cached)
     public Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String hash = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.getIfPresent(hash);
+        if (cached != null) {
+            if (now < cached.expiresAt) {
+                cacheHits.incrementAndGet();
+                return cached.claims;
+            }
+            verified.invalidate(hash);
+            expiredEvictions.incrementAndGet();
+        }
+
+        cacheMisses.incrementAndGet();
+        // Throws for a bad signature or an expired token, exactly as before
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null && maxCachedTokens > 0) {
+            verified.put(hash, new VerifiedToken(claims, expiration.getTime()));
+        }
+        return claims;
     }
 
     // ✅ Create Authentication object for Spring Security
     public Authentication buildAuthentication(String token) {
-        String email = extractUsername(token);
-        return new UsernamePasswordAuthenticationToken(email, null, null);
+        return buildAuthentication(getClaims(token));
+    }
+
+    // ✅ Create Authentication object from already verified claims
+    public Authentication buildAuthentication(Claims claims) {
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), null, null);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedTokens", verified.size());
+        stats.put("maxCachedTokens", maxCachedTokens);
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("cacheMisses", cacheMisses.get());
+        stats.put("expiredEvictions", expiredEvictions.get());
+        return stats;
     }
 
     public Key getKey() {
         return this.key;
     }
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
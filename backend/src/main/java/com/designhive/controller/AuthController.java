@@ -5,10 +5,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.designhive.config.JwtAuthFilter;
 import com.designhive.entity.User;
 import com.designhive.service.AuthService;
 import org.springframework.http.MediaType;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -16,6 +19,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private JwtAuthFilter jwtAuthFilter;
+
     // ✅ Register
     @PostMapping(value = "/register", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public String registerUser(
@@ -38,6 +44,12 @@ public class AuthController {
             return ResponseEntity.status(401).body("Login failed: " + e.getMessage());
         }
     }
+    // Per-request JWT authentication timing and token cache counters
+    @GetMapping("/stats")
+    public Map<String, Object> getAuthStats() {
+        return jwtAuthFilter.getAuthStats();
+    }
+
     @PutMapping("/change-password")
     public ResponseEntity<String> changePassword(
             @RequestParam String email,
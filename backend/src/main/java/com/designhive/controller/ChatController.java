@@ -6,6 +6,8 @@ import com.designhive.service.ChatService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -23,7 +25,8 @@ public class ChatController {
 
     // 🔸 POST /api/chats/start
     @PostMapping("/start")
-    public ResponseEntity<Map<String, String>> startChat(@RequestBody StartChatRequest request) {
+    public ResponseEntity<Map<String, String>> startChat(@RequestBody StartChatRequest request)
+            throws ExecutionException, InterruptedException {
         String chatId = chatService.startChat(request);
         return ResponseEntity.ok(Map.of("chatId", chatId));
     }
@@ -34,17 +37,38 @@ public class ChatController {
             @PathVariable String chatId,
             @RequestBody MessageRequest message) throws ExecutionException, InterruptedException {
 
-        String messageId = chatService.sendMessage(chatId, message);
-        return ResponseEntity.ok(Map.of("messageId", messageId));
+        try {
+            String messageId = chatService.sendMessage(chatId, message);
+            return ResponseEntity.ok(Map.of("messageId", messageId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
-    // 🔸 GET /api/chats/{chatId}/messages
+    // 🔸 GET /api/chats/{chatId}/messages?limit=50&before=&after=
     @GetMapping("/{chatId}/messages")
-    public ResponseEntity<List<Map<String, Object>>> getMessages(@PathVariable String chatId)
-            throws ExecutionException, InterruptedException {
+    public ResponseEntity<?> getMessages(
+            @PathVariable String chatId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) throws ExecutionException, InterruptedException {
+
+        try {
+            return ResponseEntity.ok(chatService.getMessages(chatId, before, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
-        List<Map<String, Object>> messages = chatService.getMessages(chatId);
-        return ResponseEntity.ok(messages);
+    // 🔸 GET /api/chats/{chatId}/stream (server-sent events: added/modified/removed messages, chatDeleted)
+    @GetMapping(value = "/{chatId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(@PathVariable String chatId) {
+        return chatService.streamMessages(chatId);
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        return ResponseEntity.ok(chatService.getStreamStats());
     }
 
     // 🔄 PUT /api/chats/{chatId}/messages/{messageId}
@@ -69,11 +93,44 @@ public class ChatController {
         return ResponseEntity.ok("Message deleted");
     }
 
+    // 🔸 GET /api/chats/user/{email}?limit=50 (most recently active first)
     @GetMapping("/user/{email}")
-    public ResponseEntity<List<String>> getUserChats(@PathVariable String email)
+    public ResponseEntity<List<Map<String, Object>>> getUserChats(
+            @PathVariable String email,
+            @RequestParam(defaultValue = "50") int limit) throws ExecutionException, InterruptedException {
+        List<Map<String, Object>> chats = chatService.getUserChats(email, limit);
+        return ResponseEntity.ok(chats);
+    }
+
+    // 🔸 GET /api/chats/inbox/{email}?limit=50 (chat list with last message, unread count and other user)
+    @GetMapping("/inbox/{email}")
+    public ResponseEntity<List<Map<String, Object>>> getInbox(
+            @PathVariable String email,
+            @RequestParam(defaultValue = "50") int limit) throws ExecutionException, InterruptedException {
+        return ResponseEntity.ok(chatService.getInbox(email, limit));
+    }
+
+    // 🔸 GET /api/chats/{chatId}/participants?viewer= (participants and the other user's profile)
+    @GetMapping("/{chatId}/participants")
+    public ResponseEntity<?> getParticipants(@PathVariable String chatId, @RequestParam String viewer)
             throws ExecutionException, InterruptedException {
-        List<String> chatIds = chatService.getUserChats(email);
-        return ResponseEntity.ok(chatIds);
+        try {
+            return ResponseEntity.ok(chatService.getChatParticipants(chatId, viewer));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 🔸 PUT /api/chats/{chatId}/read/{email}
+    @PutMapping("/{chatId}/read/{email}")
+    public ResponseEntity<?> markRead(@PathVariable String chatId, @PathVariable String email) {
+        try {
+            chatService.markRead(chatId, email);
+            return ResponseEntity.ok("Chat marked as read");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error marking chat as read: " + e.getMessage());
+        }
     }
 
     @GetMapping("/started/{email}")
@@ -94,8 +151,8 @@ public class ChatController {
     @DeleteMapping("/{chatId}")
     public ResponseEntity<?> deleteChat(@PathVariable String chatId) {
         try {
-            chatService.deleteChat(chatId);
-            return ResponseEntity.ok("Chat deleted");
+            long deleted = chatService.deleteChat(chatId);
+            return ResponseEntity.ok(Map.of("message", "Chat deleted", "documentsDeleted", deleted));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error deleting chat: " + e.getMessage());
@@ -2,9 +2,14 @@ package com.designhive.controller;
 
 import com.designhive.entity.FollowRequest;
 import com.designhive.repository.FollowRepository;
+import com.designhive.service.FollowSuggestionService;
+import com.designhive.service.UserProfileResolver;
+import com.google.cloud.firestore.DocumentSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +20,12 @@ public class FollowController {
     @Autowired
     private FollowRepository followRepository;
 
+    @Autowired
+    private FollowSuggestionService followSuggestionService;
+
+    @Autowired
+    private UserProfileResolver userProfileResolver;
+
     @PostMapping("/send")
     public String sendRequest(@RequestParam String senderEmail, @RequestParam String receiverEmail) throws Exception {
         followRepository.sendFollowRequest(senderEmail, receiverEmail);
@@ -42,6 +53,28 @@ public class FollowController {
         return followRepository.getFollowing(email);
     }
 
+    // Follower/following counts without loading the lists
+    @GetMapping("/counts")
+    public Map<String, Long> getCounts(@RequestParam String email) throws Exception {
+        return followRepository.getFollowCounts(email);
+    }
+
+    // One page of followers with username/avatar: { users, nextCursor }
+    @GetMapping("/followers/page")
+    public Map<String, Object> getFollowersPage(@RequestParam String email,
+                                                @RequestParam(defaultValue = "20") int limit,
+                                                @RequestParam(required = false) String cursor) throws Exception {
+        return withProfiles(followRepository.getFollowPage(email, true, limit, cursor), true);
+    }
+
+    // One page of followed users with username/avatar: { users, nextCursor }
+    @GetMapping("/following/page")
+    public Map<String, Object> getFollowingPage(@RequestParam String email,
+                                                @RequestParam(defaultValue = "20") int limit,
+                                                @RequestParam(required = false) String cursor) throws Exception {
+        return withProfiles(followRepository.getFollowPage(email, false, limit, cursor), false);
+    }
+
     @GetMapping("/statuses")
     public Map<String, String> getFollowStatuses(@RequestParam String senderEmail) throws Exception {
         return followRepository.getFollowStatuses(senderEmail);
@@ -72,4 +105,47 @@ public class FollowController {
         return "Follower removed successfully";
     }
 
+    // People you may know, best first
+    @GetMapping("/suggestions")
+    public List<Map<String, Object>> getSuggestions(@RequestParam String email,
+                                                    @RequestParam(defaultValue = "10") int limit) throws Exception {
+        return followSuggestionService.getSuggestions(email, limit);
+    }
+
+    @GetMapping("/suggestions/stats")
+    public Map<String, Object> getSuggestionStats() {
+        return followSuggestionService.getStats();
+    }
+
+    @GetMapping("/graph/stats")
+    public Map<String, Object> getGraphStats() {
+        return followRepository.getGraphStats();
+    }
+
+    // Replace the page's requests with the other user's profile, resolved in one batched lookup
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> withProfiles(Map<String, Object> page, boolean followers) throws Exception {
+        List<FollowRequest> requests = (List<FollowRequest>) page.get("requests");
+        List<String> emails = new ArrayList<>();
+        for (FollowRequest request : requests) {
+            emails.add(followers ? request.getSenderEmail() : request.getReceiverEmail());
+        }
+        Map<String, DocumentSnapshot> profiles = userProfileResolver.resolveByEmails(emails);
+
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            DocumentSnapshot profile = profiles.get(emails.get(i));
+            Map<String, Object> user = new HashMap<>();
+            user.put("email", emails.get(i));
+            user.put("username", profile != null ? profile.getString("username") : null);
+            user.put("avatar", profile != null ? profile.getString("profileImagePath") : null);
+            user.put("requestId", requests.get(i).getId());
+            users.add(user);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", users);
+        result.put("nextCursor", page.get("nextCursor"));
+        return result;
+    }
 }
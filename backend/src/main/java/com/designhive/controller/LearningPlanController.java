@@ -1,12 +1,20 @@
 package com.designhive.controller;
 
 import com.designhive.entity.LearningPlan;
+import com.designhive.entity.Task;
+import com.designhive.service.LearningPlanAnalyticsService;
+import com.designhive.service.LearningPlanBulkService;
 import com.designhive.service.LearningPlanService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 @RestController
@@ -16,6 +24,14 @@ public class LearningPlanController {
     @Autowired
     private LearningPlanService learningPlanService;
 
+    @Autowired
+    private LearningPlanBulkService learningPlanBulkService;
+
+    @Autowired
+    private LearningPlanAnalyticsService learningPlanAnalyticsService;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     // Create a new Learning Plan
     @PostMapping
     public ResponseEntity<LearningPlan> createLearningPlan(@RequestBody LearningPlan plan) throws ExecutionException, InterruptedException {
@@ -41,6 +57,12 @@ public class LearningPlanController {
         return ResponseEntity.ok(plans);  // Return all learning plans for the user
     }
 
+    // Get plan headers and progress for a user (no tasks), for plan lists
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<Map<String, Object>>> getLearningPlanSummaries(@PathVariable String userId) throws ExecutionException, InterruptedException {
+        return ResponseEntity.ok(learningPlanService.getLearningPlanSummariesByUserId(userId));
+    }
+
     // Update an existing Learning Plan
     @PutMapping("/{id}")
     public ResponseEntity<LearningPlan> updateLearningPlan(@PathVariable String id, @RequestBody LearningPlan plan) throws ExecutionException, InterruptedException {
@@ -62,4 +84,92 @@ public class LearningPlanController {
             return ResponseEntity.notFound().build();  // Return 404 if not found
         }
     }
+
+    // Add a task to a Learning Plan
+    @PostMapping("/{id}/tasks")
+    public ResponseEntity<LearningPlan> addTask(@PathVariable String id, @RequestBody Task task) throws ExecutionException, InterruptedException {
+        LearningPlan plan = learningPlanService.addTask(id, task);
+        if (plan != null) {
+            return ResponseEntity.ok(plan);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Update one task (e.g. toggle completed) without rewriting the plan
+    @PutMapping("/{id}/tasks/{taskId}")
+    public ResponseEntity<LearningPlan> updateTask(@PathVariable String id, @PathVariable String taskId, @RequestBody Task task) throws ExecutionException, InterruptedException {
+        LearningPlan plan = learningPlanService.updateTask(id, taskId, task);
+        if (plan != null) {
+            return ResponseEntity.ok(plan);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Delete a task from a Learning Plan
+    @DeleteMapping("/{id}/tasks/{taskId}")
+    public ResponseEntity<Void> deleteTask(@PathVariable String id, @PathVariable String taskId) throws ExecutionException, InterruptedException {
+        boolean deleted = learningPlanService.deleteTask(id, taskId);
+        if (deleted) {
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Bulk import: the request body is NDJSON, one plan per line. Existing plans are only replaced with overwrite=true.
+    @PostMapping("/import")
+    public ResponseEntity<?> importLearningPlans(HttpServletRequest request,
+                                                 @RequestParam(defaultValue = "false") boolean overwrite) {
+        try {
+            Map<String, Object> result = learningPlanBulkService.importPlans(request.getInputStream(), overwrite);
+            // A failed commit still reports how many plans were written before it
+            return result.containsKey("error") ? ResponseEntity.status(500).body(result) : ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error importing learning plans: " + e.getMessage());
+        }
+    }
+
+    // Bulk export as NDJSON, streamed while plans are read (all plans, or one user's)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLearningPlans(@RequestParam(required = false) String userId) {
+        StreamingResponseBody body = output -> {
+            try {
+                learningPlanBulkService.exportPlans(userId, output);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error exporting learning plans", e);
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Completion rates, overdue plans and status distribution across all users (precomputed)
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics() {
+        try {
+            return ResponseEntity.ok(learningPlanAnalyticsService.getGlobalStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error loading learning plan analytics: " + e.getMessage());
+        }
+    }
+
+    // The same statistics for one user
+    @GetMapping("/analytics/user/{userId}")
+    public ResponseEntity<?> getUserAnalytics(@PathVariable String userId) {
+        try {
+            return ResponseEntity.ok(learningPlanAnalyticsService.getUserStats(userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error loading learning plan analytics: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics/stats")
+    public Map<String, Object> getAnalyticsJobStats() {
+        return learningPlanAnalyticsService.getJobStats();
+    }
 }
@@ -20,22 +20,61 @@ public class PostController {
 
     private static final Logger logger = LoggerFactory.getLogger(PostController.class);
 
-    // Get all posts
+    // Deprecated: the newest posts only (capped), kept for old clients. Use /feed to page.
     @GetMapping
-    public ResponseEntity<?> getPosts() {
+    public ResponseEntity<?> getPosts(@RequestParam(required = false) String viewer) {
         try {
-            return ResponseEntity.ok(postService.getAllPosts());
+            return ResponseEntity.ok()
+                    .header("Deprecation", "true")
+                    .header("Link", "</api/posts/feed>; rel=\"successor-version\"")
+                    .body(postService.getRecentPosts(viewer));
         } catch (Exception e) {
             logger.error("Error fetching posts", e);
             return ResponseEntity.status(500).body("Error fetching posts");
         }
     }
 
+    // Get one page of the feed (cursor-paginated)
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeedPage(@RequestParam(defaultValue = "20") int limit,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) String viewer) {
+        try {
+            return ResponseEntity.ok(postService.getFeedPage(limit, cursor, viewer));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching feed page", e);
+            return ResponseEntity.status(500).body("Error fetching feed page");
+        }
+    }
+
+    // Get one page of posts from followed users (cursor-paginated)
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getFollowingTimeline(@RequestParam String viewer,
+                                                  @RequestParam(defaultValue = "20") int limit,
+                                                  @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(postService.getFollowingTimeline(viewer, limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching timeline", e);
+            return ResponseEntity.status(500).body("Error fetching timeline");
+        }
+    }
+
+    @GetMapping("/timeline/stats")
+    public ResponseEntity<?> getTimelineStats() {
+        return ResponseEntity.ok(postService.getTimelineStats());
+    }
+
     // Get posts by user ID
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getPostsByUser(@PathVariable String userId) {
+    public ResponseEntity<?> getPostsByUser(@PathVariable String userId,
+                                            @RequestParam(required = false) String viewer) {
         try {
-            return ResponseEntity.ok(postService.getPostsByUser(userId));
+            return ResponseEntity.ok(postService.getPostsByUser(userId, viewer));
         } catch (Exception e) {
             logger.error("Error fetching user's posts", e);
             return ResponseEntity.status(500).body("Error fetching user's posts");
@@ -61,6 +100,17 @@ public class PostController {
         }
     }
     
+    // Which of the given posts the viewer has liked
+    @GetMapping("/liked")
+    public ResponseEntity<?> hasLiked(@RequestParam String viewer, @RequestParam List<String> postIds) {
+        try {
+            return ResponseEntity.ok(postService.hasLiked(viewer, postIds));
+        } catch (Exception e) {
+            logger.error("Error checking liked posts", e);
+            return ResponseEntity.status(500).body("Error checking liked posts");
+        }
+    }
+
     @PostMapping("/{id}/unlike")
 public ResponseEntity<?> unlikePost(@PathVariable String id, @RequestBody Map<String, String> body) {
     try {
@@ -176,9 +226,14 @@ public ResponseEntity<?> unlikePost(@PathVariable String id, @RequestBody Map<St
 
     // Search posts by keyword
     @GetMapping("/search")
-    public ResponseEntity<?> searchPosts(@RequestParam("q") String keyword) {
+    public ResponseEntity<?> searchPosts(@RequestParam("q") String keyword,
+                                         @RequestParam(defaultValue = "20") int limit,
+                                         @RequestParam(defaultValue = "0") int offset) {
+        if (!postService.isSearchReady()) {
+            return ResponseEntity.status(503).body("Search is starting up, please try again shortly");
+        }
         try {
-            return ResponseEntity.ok(postService.searchPostsByKeyword(keyword));
+            return ResponseEntity.ok(postService.searchPostsByKeyword(keyword, offset, limit));
         } catch (Exception e) {
             logger.error("Error searching posts", e);
             return ResponseEntity.status(500).body("Error searching posts");
@@ -187,13 +242,42 @@ public ResponseEntity<?> unlikePost(@PathVariable String id, @RequestBody Map<St
 
     // Get recommended posts
     @GetMapping("/recommended")
-    public ResponseEntity<?> getRecommendedPosts(@RequestParam String userId) {
+    public ResponseEntity<?> getRecommendedPosts(@RequestParam String userId,
+                                                 @RequestParam(defaultValue = "20") int limit,
+                                                 @RequestParam(defaultValue = "0") int offset) {
+        if (!postService.isRecommendationReady()) {
+            return ResponseEntity.status(503).body("Recommendations are starting up, please try again shortly");
+        }
         try {
-            List<Map<String, Object>> posts = postService.getRecommendedPosts(userId);
+            List<Map<String, Object>> posts = postService.getRecommendedPosts(userId, offset, limit);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
             logger.error("Error fetching recommended posts", e);
             return ResponseEntity.status(500).body("Error fetching recommended posts");
         }
     }
+
+    // Search index readiness and catch-up watermark
+    @GetMapping("/search/stats")
+    public ResponseEntity<?> getSearchIndexStats() {
+        return ResponseEntity.ok(postService.getSearchIndexStats());
+    }
+
+    // Tag index readiness, size and last rebuild time
+    @GetMapping("/tag-index/stats")
+    public ResponseEntity<?> getTagIndexStats() {
+        return ResponseEntity.ok(postService.getTagIndexStats());
+    }
+
+    // Like notification queue depth and send latency
+    @GetMapping("/notifications/stats")
+    public ResponseEntity<?> getNotificationStats() {
+        return ResponseEntity.ok(postService.getNotificationStats());
+    }
+
+    // Sharded like counter state
+    @GetMapping("/likes/sharding/stats")
+    public ResponseEntity<?> getLikeShardingStats() {
+        return ResponseEntity.ok(postService.getLikeShardingStats());
+    }
 }
@@ -1,6 +1,7 @@
 package com.designhive.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +11,11 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.google.cloud.firestore.Firestore;
-import com.google.firebase.cloud.FirestoreClient;
 import com.designhive.entity.User;
 import com.designhive.repository.UserRepository;
+import com.designhive.service.AccountErasureService;
 import com.designhive.service.FirebaseStorageService;
+import com.designhive.service.FollowSuggestionService;
 
 @RestController //handles HTTP requests and returns JSON/text
 @RequestMapping("/api/user")//All endpoints here will start with /api/user
@@ -26,6 +27,12 @@ public class userController {
     @Autowired
     private FirebaseStorageService firebaseStorageService;
 
+    @Autowired
+    private AccountErasureService accountErasureService;
+
+    @Autowired
+    private FollowSuggestionService followSuggestionService;
+
     @GetMapping("/email/{email}")
     public User getUserByEmailPath(@PathVariable String email) throws Exception {
         System.out.println("🔍 Looking up user by email (path): " + email);
@@ -52,6 +59,7 @@ public class userController {
         updatedUser.setProfileImagePath(existing.getProfileImagePath());
 
         userRepository.saveUser(updatedUser);
+        followSuggestionService.markDirty(updatedUser.getEmail()); // preferences/skills may have changed
         return "Profile updated successfully";
     }
 
@@ -98,18 +106,34 @@ public class userController {
         }
 
         userRepository.saveUser(user);
+        followSuggestionService.markDirty(user.getEmail()); // preferences/skills may have changed
         return "Profile updated successfully";
     }
 
     @DeleteMapping("/delete")
     public String deleteUser(@RequestParam String email) throws Exception {
-        User user = userRepository.getUserByEmail(email);
-        if (user == null) throw new Exception("User not found");
-        Firestore db = FirestoreClient.getFirestore();
-        db.collection("users").document(email).delete().get();
+        // Removes the account now; posts, chats, follows etc. are erased in the background.
+        // Repeating the call for an erased account re-runs its unfinished erasure job.
+        try {
+            accountErasureService.requestErasure(email);
+        } catch (IllegalArgumentException e) {
+            throw new Exception(e.getMessage());
+        }
         return "Account deleted successfully";
     }
 
+    @GetMapping("/erasure/{email}")
+    public Map<String, Object> getErasureJob(@PathVariable String email) throws Exception {
+        Map<String, Object> job = accountErasureService.getJob(email);
+        if (job == null) throw new Exception("No erasure job for " + email);
+        return job;
+    }
+
+    @GetMapping("/erasure-stats")
+    public Map<String, Object> getErasureStats() {
+        return accountErasureService.getStats();
+    }
+
     @GetMapping("/me")
     public User getCurrentUser(Authentication authentication) throws Exception {
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -144,4 +168,9 @@ public class userController {
     public List<User> getAllUsers() throws Exception {
         return userRepository.getAllUsers();
     }
+
+    @GetMapping("/cache-stats")
+    public Map<String, Object> getCacheStats() {
+        return userRepository.getCacheStats();
+    }
 }
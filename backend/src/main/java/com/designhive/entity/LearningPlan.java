@@ -1,24 +1,43 @@
 package com.designhive.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.annotation.Exclude;
+import com.google.cloud.firestore.annotation.PropertyName;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class LearningPlan {
+    // Format of createdAt/updatedAt before they became timestamps (server time zone)
+    private static final String LEGACY_TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
     private String id;
     private String userId;
     private String title;
     private String description;
     private int progress; // 0 to 100
     private String status; // planned, in-progress, completed
-    private List<Task> tasks; // Embedded list of tasks
+    private List<Task> tasks; // Embedded list of tasks (stored in Firestore as taskMap, keyed by task id)
+    private int totalTasks;
+    private int completedTasks;
     private String startDate;
     private String endDate;
-    private String createdAt;
-    private String updatedAt;
+    private Timestamp createdAt; // Firestore timestamps, so plans can be queried by updatedAt
+    private Timestamp updatedAt;
 
     public LearningPlan() {}
 
     public LearningPlan(String id, String userId, String title, String description, int progress, String status,
-                        List<Task> tasks, String startDate, String endDate, String createdAt, String updatedAt) {
+                        List<Task> tasks, String startDate, String endDate, Timestamp createdAt, Timestamp updatedAt) {
         this.id = id;
         this.userId = userId;
         this.title = title;
@@ -51,18 +70,115 @@ public class LearningPlan {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    @Exclude
     public List<Task> getTasks() { return tasks; }
+    @Exclude
     public void setTasks(List<Task> tasks) { this.tasks = tasks; }
 
+    // Firestore form of the tasks, so a single task can be written by field path
+    @JsonIgnore
+    public Map<String, Task> getTaskMap() {
+        if (tasks == null) return null;
+        Map<String, Task> taskMap = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            taskMap.put(task.getId(), task);
+        }
+        return taskMap;
+    }
+
+    @JsonIgnore
+    public void setTaskMap(Map<String, Task> taskMap) {
+        if (taskMap == null) {
+            this.tasks = null;
+            return;
+        }
+        List<Task> ordered = new ArrayList<>(taskMap.values());
+        ordered.sort(Comparator.comparingLong(Task::getPosition));
+        this.tasks = ordered;
+    }
+
+    public int getTotalTasks() { return totalTasks; }
+    public void setTotalTasks(int totalTasks) { this.totalTasks = totalTasks; }
+
+    public int getCompletedTasks() { return completedTasks; }
+    public void setCompletedTasks(int completedTasks) { this.completedTasks = completedTasks; }
+
     public String getStartDate() { return startDate; }
     public void setStartDate(String startDate) { this.startDate = startDate; }
 
     public String getEndDate() { return endDate; }
     public void setEndDate(String endDate) { this.endDate = endDate; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    @Exclude
+    @JsonIgnore
+    public Timestamp getCreatedAt() { return createdAt; }
+    @Exclude
+    @JsonIgnore
+    public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
 
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    @Exclude
+    @JsonIgnore
+    public Timestamp getUpdatedAt() { return updatedAt; }
+    @Exclude
+    @JsonIgnore
+    public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
+
+    // Firestore form of the timestamps. Older documents hold "yyyy-MM-dd HH:mm:ss" strings,
+    // which are converted on read so they stay readable until the startup migration rewrites them.
+    @PropertyName("createdAt")
+    @JsonIgnore
+    public Object getCreatedAtValue() { return createdAt; }
+    @PropertyName("createdAt")
+    @JsonIgnore
+    public void setCreatedAtValue(Object createdAt) { this.createdAt = toTimestamp(createdAt); }
+
+    @PropertyName("updatedAt")
+    @JsonIgnore
+    public Object getUpdatedAtValue() { return updatedAt; }
+    @PropertyName("updatedAt")
+    @JsonIgnore
+    public void setUpdatedAtValue(Object updatedAt) { this.updatedAt = toTimestamp(updatedAt); }
+
+    // ✅ A stored createdAt/updatedAt value as a timestamp (null if it cannot be read)
+    public static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof String) {
+            try {
+                return Timestamp.of(new SimpleDateFormat(LEGACY_TIMESTAMP_FORMAT).parse((String) value));
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // JSON carries the timestamps as ISO-8601 strings. Create and update set them on the server;
+    // only bulk import keeps the values it reads, so an exported plan comes back unchanged.
+    @Exclude
+    @JsonProperty("createdAt")
+    public String getCreatedAtText() { return createdAt == null ? null : createdAt.toDate().toInstant().toString(); }
+    @Exclude
+    @JsonProperty("createdAt")
+    public void setCreatedAtText(String createdAt) { this.createdAt = parseInstant("createdAt", createdAt); }
+
+    @Exclude
+    @JsonProperty("updatedAt")
+    public String getUpdatedAtText() { return updatedAt == null ? null : updatedAt.toDate().toInstant().toString(); }
+    @Exclude
+    @JsonProperty("updatedAt")
+    public void setUpdatedAtText(String updatedAt) { this.updatedAt = parseInstant("updatedAt", updatedAt); }
+
+    private static Timestamp parseInstant(String field, String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            Instant instant = Instant.parse(text);
+            return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " is not an ISO-8601 instant");
+        }
+    }
 }
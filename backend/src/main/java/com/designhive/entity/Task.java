@@ -5,6 +5,7 @@ public class Task {
     private String title;
     private String description;
     private boolean completed;
+    private long position;       // Order of the task within its plan
 
     public Task() {}
 
@@ -27,4 +28,7 @@ public class Task {
 
     public boolean isCompleted() { return completed; }
     public void setCompleted(boolean completed) { this.completed = completed; }
+
+    public long getPosition() { return position; }
+    public void setPosition(long position) { this.position = position; }
 }
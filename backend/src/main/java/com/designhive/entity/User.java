@@ -1,10 +1,12 @@
 package com.designhive.entity;
 
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
 import lombok.Data;
 import java.util.List;
 import java.util.Map;
 
 @Data
+@IgnoreExtraProperties
 public class User {
     private String id;
     private String username;
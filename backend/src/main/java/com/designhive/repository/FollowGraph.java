@@ -0,0 +1,501 @@
+package com.designhive.repository;
+
+import com.designhive.entity.FollowRequest;
+import com.google.cloud.firestore.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// In-memory copy of the followRequests collection. Users are interned to int ids and each
+// user's accepted and pending edges, in both directions, are sorted int arrays, so counts
+// and status checks never touch Firestore. FollowRepository keeps it current on every write;
+// it is rebuilt at startup and periodically to pick up writes made by other instances.
+@Component
+public class FollowGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraph.class);
+    private static final String COLLECTION_NAME = "followRequests";
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    public static final String ACCEPTED = "accepted";
+    public static final String PENDING = "pending";
+
+    private final Firestore firestore;
+    private final Object lock = new Object();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "follow-graph-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long refreshMinutes;
+    private final List<EdgeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = new State();
+    private volatile boolean ready;
+    // Writes made while a rebuild is reading Firestore, replayed onto the new state
+    private List<Consumer<State>> replay;
+    private long lastRebuildMillis = -1;
+
+    @Autowired
+    public FollowGraph(Firestore firestore, @Value("${follow.graph.refresh-minutes:10}") long refreshMinutes) {
+        this.firestore = firestore;
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Failed to build follow graph", e);
+        }
+        if (refreshMinutes > 0) {
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.error("Failed to refresh follow graph", e);
+                }
+            }, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    // ✅ Reload every follow edge from Firestore and swap it in
+    public void rebuild() throws Exception {
+        long start = System.currentTimeMillis();
+        synchronized (lock) {
+            replay = new ArrayList<>();
+        }
+        State fresh = new State();
+        try {
+            Query base = firestore.collection(COLLECTION_NAME)
+                    .select("senderEmail", "receiverEmail", "status")
+                    .orderBy(FieldPath.documentId())
+                    .limit(REBUILD_PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                for (QueryDocumentSnapshot doc : docs) {
+                    String sender = doc.getString("senderEmail");
+                    String receiver = doc.getString("receiverEmail");
+                    String status = doc.getString("status");
+                    if (sender != null && receiver != null) {
+                        fresh.add(doc.getId(), sender, receiver, ACCEPTED.equals(status));
+                    }
+                }
+                if (docs.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+        } catch (Exception e) {
+            synchronized (lock) {
+                replay = null;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            replay.forEach(write -> write.accept(fresh));
+            replay = null;
+            state = fresh;
+            ready = true;
+            lastRebuildMillis = System.currentTimeMillis() - start;
+        }
+        logger.info("Follow graph rebuilt: {} users, {} accepted and {} pending edges in {} ms",
+                fresh.emails.size(), fresh.acceptedIds.size(), fresh.pendingIds.size(), lastRebuildMillis);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void addPending(String requestId, String senderEmail, String receiverEmail) {
+        apply(state -> state.add(requestId, senderEmail, receiverEmail, false));
+    }
+
+    public void accept(String requestId, String senderEmail, String receiverEmail) {
+        apply(state -> {
+            state.remove(senderEmail, receiverEmail, false);
+            state.add(requestId, senderEmail, receiverEmail, true);
+        });
+        notifyListeners(senderEmail, receiverEmail);
+    }
+
+    public void removeAccepted(String senderEmail, String receiverEmail) {
+        apply(state -> state.remove(senderEmail, receiverEmail, true));
+        notifyListeners(senderEmail, receiverEmail);
+    }
+
+    public void removePending(String senderEmail, String receiverEmail) {
+        apply(state -> state.remove(senderEmail, receiverEmail, false));
+    }
+
+    // ✅ Drop every edge touching the user (account erasure)
+    public void removeUser(String email) {
+        apply(state -> state.removeUser(email));
+    }
+
+    // ✅ Accepted follow requests received by the user (their followers)
+    public List<FollowRequest> getFollowers(String email) {
+        synchronized (lock) {
+            return state.requests(email, true, false);
+        }
+    }
+
+    // ✅ Accepted follow requests sent by the user (who they follow)
+    public List<FollowRequest> getFollowing(String email) {
+        synchronized (lock) {
+            return state.requests(email, true, true);
+        }
+    }
+
+    public List<FollowRequest> getPendingReceived(String email) {
+        synchronized (lock) {
+            return state.requests(email, false, false);
+        }
+    }
+
+    public List<FollowRequest> getPendingSent(String email) {
+        synchronized (lock) {
+            return state.requests(email, false, true);
+        }
+    }
+
+    // ✅ Receiver email -> "accepted"/"pending" for every request the user has sent
+    public Map<String, String> getStatuses(String senderEmail) {
+        synchronized (lock) {
+            Map<String, String> statuses = new HashMap<>();
+            Node node = state.node(senderEmail);
+            if (node != null) {
+                for (int i = 0; i < node.pendingOut.size; i++) {
+                    statuses.put(state.emails.get(node.pendingOut.values[i]), PENDING);
+                }
+                for (int i = 0; i < node.acceptedOut.size; i++) {
+                    statuses.put(state.emails.get(node.acceptedOut.values[i]), ACCEPTED);
+                }
+            }
+            return statuses;
+        }
+    }
+
+    // ✅ "accepted", "pending" or null
+    public String getStatus(String senderEmail, String receiverEmail) {
+        synchronized (lock) {
+            Node node = state.node(senderEmail);
+            Integer receiver = state.ids.get(receiverEmail);
+            if (node == null || receiver == null) {
+                return null;
+            }
+            if (node.acceptedOut.contains(receiver)) {
+                return ACCEPTED;
+            }
+            return node.pendingOut.contains(receiver) ? PENDING : null;
+        }
+    }
+
+    // ✅ Emails of the user's followers (incoming accepted edges)
+    public List<String> getFollowerEmails(String email) {
+        synchronized (lock) {
+            Node node = state.node(email);
+            return node == null ? new ArrayList<>() : state.toEmails(node.acceptedIn);
+        }
+    }
+
+    // ✅ Emails of the users this user follows (outgoing accepted edges)
+    public List<String> getFollowingEmails(String email) {
+        synchronized (lock) {
+            Node node = state.node(email);
+            return node == null ? new ArrayList<>() : state.toEmails(node.acceptedOut);
+        }
+    }
+
+    // ✅ Called after an accepted edge is added or removed on this instance
+    public void addListener(EdgeListener listener) {
+        listeners.add(listener);
+    }
+
+    // ✅ Copy of the accepted graph for batch jobs: per user, the sorted ids of everyone they
+    // follow or are followed by, plus the ids they have pending requests to
+    public Snapshot snapshot() {
+        synchronized (lock) {
+            int size = state.emails.size();
+            String[] emails = state.emails.toArray(new String[0]);
+            int[][] connections = new int[size][];
+            int[][] pendingOut = new int[size][];
+            for (int user = 0; user < size; user++) {
+                Node node = state.nodes.get(user);
+                connections[user] = union(node.acceptedOut, node.acceptedIn);
+                pendingOut[user] = node.pendingOut.toArray();
+            }
+            return new Snapshot(emails, connections, pendingOut);
+        }
+    }
+
+    public int getFollowerCount(String email) {
+        synchronized (lock) {
+            Node node = state.node(email);
+            return node == null ? 0 : node.acceptedIn.size;
+        }
+    }
+
+    public int getFollowingCount(String email) {
+        synchronized (lock) {
+            Node node = state.node(email);
+            return node == null ? 0 : node.acceptedOut.size;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        synchronized (lock) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("users", state.emails.size());
+            stats.put("acceptedEdges", state.acceptedIds.size());
+            stats.put("pendingEdges", state.pendingIds.size());
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            return stats;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void apply(Consumer<State> write) {
+        synchronized (lock) {
+            write.accept(state);
+            if (replay != null) {
+                replay.add(write);
+            }
+        }
+    }
+
+    private void notifyListeners(String senderEmail, String receiverEmail) {
+        for (EdgeListener listener : listeners) {
+            try {
+                listener.edgeChanged(senderEmail, receiverEmail);
+            } catch (RuntimeException e) {
+                logger.error("Follow graph listener failed", e);
+            }
+        }
+    }
+
+    private static int[] union(IntSet a, IntSet b) {
+        int[] merged = new int[a.size + b.size];
+        int i = 0, j = 0, n = 0;
+        while (i < a.size || j < b.size) {
+            int next;
+            if (j == b.size || (i < a.size && a.values[i] < b.values[j])) {
+                next = a.values[i++];
+            } else if (i == a.size || b.values[j] < a.values[i]) {
+                next = b.values[j++];
+            } else {
+                next = a.values[i++];
+                j++;
+            }
+            merged[n++] = next;
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private static long edgeKey(int sender, int receiver) {
+        return ((long) sender << 32) | (receiver & 0xffffffffL);
+    }
+
+    public interface EdgeListener {
+        void edgeChanged(String senderEmail, String receiverEmail);
+    }
+
+    public static class Snapshot {
+        private final String[] emails;
+        private final int[][] connections;
+        private final int[][] pendingOut;
+
+        private Snapshot(String[] emails, int[][] connections, int[][] pendingOut) {
+            this.emails = emails;
+            this.connections = connections;
+            this.pendingOut = pendingOut;
+        }
+
+        public int size() {
+            return emails.length;
+        }
+
+        public String getEmail(int user) {
+            return emails[user];
+        }
+
+        public int[] getConnections(int user) {
+            return connections[user];
+        }
+
+        public int[] getPendingOut(int user) {
+            return pendingOut[user];
+        }
+    }
+
+    private static class State {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> emails = new ArrayList<>();
+        private final List<Node> nodes = new ArrayList<>();
+        // Document id of each edge, keyed by (sender, receiver)
+        private final Map<Long, String> acceptedIds = new HashMap<>();
+        private final Map<Long, String> pendingIds = new HashMap<>();
+
+        private int intern(String email) {
+            Integer id = ids.get(email);
+            if (id == null) {
+                id = emails.size();
+                ids.put(email, id);
+                emails.add(email);
+                nodes.add(new Node());
+            }
+            return id;
+        }
+
+        private Node node(String email) {
+            Integer id = ids.get(email);
+            return id == null ? null : nodes.get(id);
+        }
+
+        private void add(String requestId, String senderEmail, String receiverEmail, boolean accepted) {
+            int sender = intern(senderEmail);
+            int receiver = intern(receiverEmail);
+            if (accepted) {
+                nodes.get(sender).acceptedOut.add(receiver);
+                nodes.get(receiver).acceptedIn.add(sender);
+                acceptedIds.put(edgeKey(sender, receiver), requestId);
+            } else {
+                nodes.get(sender).pendingOut.add(receiver);
+                nodes.get(receiver).pendingIn.add(sender);
+                pendingIds.put(edgeKey(sender, receiver), requestId);
+            }
+        }
+
+        private void remove(String senderEmail, String receiverEmail, boolean accepted) {
+            Integer sender = ids.get(senderEmail);
+            Integer receiver = ids.get(receiverEmail);
+            if (sender == null || receiver == null) {
+                return;
+            }
+            if (accepted) {
+                nodes.get(sender).acceptedOut.remove(receiver);
+                nodes.get(receiver).acceptedIn.remove(sender);
+                acceptedIds.remove(edgeKey(sender, receiver));
+            } else {
+                nodes.get(sender).pendingOut.remove(receiver);
+                nodes.get(receiver).pendingIn.remove(sender);
+                pendingIds.remove(edgeKey(sender, receiver));
+            }
+        }
+
+        private void removeUser(String email) {
+            Node node = node(email);
+            if (node == null) {
+                return;
+            }
+            for (int other : node.acceptedOut.toArray()) {
+                remove(email, emails.get(other), true);
+            }
+            for (int other : node.acceptedIn.toArray()) {
+                remove(emails.get(other), email, true);
+            }
+            for (int other : node.pendingOut.toArray()) {
+                remove(email, emails.get(other), false);
+            }
+            for (int other : node.pendingIn.toArray()) {
+                remove(emails.get(other), email, false);
+            }
+        }
+
+        private List<String> toEmails(IntSet users) {
+            List<String> result = new ArrayList<>(users.size);
+            for (int i = 0; i < users.size; i++) {
+                result.add(emails.get(users.values[i]));
+            }
+            return result;
+        }
+
+        private List<FollowRequest> requests(String email, boolean accepted, boolean outgoing) {
+            List<FollowRequest> requests = new ArrayList<>();
+            Integer self = ids.get(email);
+            if (self == null) {
+                return requests;
+            }
+            Node node = nodes.get(self);
+            IntSet edges = accepted ? (outgoing ? node.acceptedOut : node.acceptedIn)
+                    : (outgoing ? node.pendingOut : node.pendingIn);
+            Map<Long, String> requestIds = accepted ? acceptedIds : pendingIds;
+            for (int i = 0; i < edges.size; i++) {
+                int other = edges.values[i];
+                int sender = outgoing ? self : other;
+                int receiver = outgoing ? other : self;
+                FollowRequest request = new FollowRequest();
+                request.setId(requestIds.get(edgeKey(sender, receiver)));
+                request.setSenderEmail(emails.get(sender));
+                request.setReceiverEmail(emails.get(receiver));
+                request.setStatus(accepted ? ACCEPTED : PENDING);
+                requests.add(request);
+            }
+            return requests;
+        }
+    }
+
+    private static class Node {
+        private final IntSet acceptedOut = new IntSet();
+        private final IntSet acceptedIn = new IntSet();
+        private final IntSet pendingOut = new IntSet();
+        private final IntSet pendingIn = new IntSet();
+    }
+
+    // Sorted growable int[]; membership is a binary search
+    private static class IntSet {
+        private int[] values = new int[2];
+        private int size;
+
+        private void add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        private void remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+
+        private boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
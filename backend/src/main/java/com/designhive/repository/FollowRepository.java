@@ -2,41 +2,103 @@ package com.designhive.repository;
 
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.cloud.FirestoreClient;
 import com.designhive.entity.FollowRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
+// Follow requests live in followRequests/{sender:receiver} (see edgeId), so every request for a
+// pair is the same document: sending twice is a no-op and accept/unfollow/cancel are point writes.
 @Repository
 public class FollowRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(FollowRepository.class);
     private static final String COLLECTION_NAME = "followRequests";
+    private static final String USERS = "users";
+    // users/{email} carries followersCount/followingCount, kept in step with accepted requests
+    private static final String FOLLOWERS_COUNT = "followersCount";
+    private static final String FOLLOWING_COUNT = "followingCount";
+    private static final int MAX_LIST_PAGE_SIZE = 100;
+    private static final int PAGE_SIZE = 200;
+    private static final long COUNTERS_VERSION = 1;
+    private static final long EDGE_IDS_VERSION = 1;
+    private static final int MIGRATION_MAX_IN_FLIGHT = 4;
+
+    // Reads are served from the in-memory graph once it has loaded
+    @Autowired
+    private FollowGraph followGraph;
+
+    // Until the startup migration has moved old random-id requests, unfollow/cancel also look them up
+    private volatile boolean edgeIdsMigrated;
+
+    // ✅ Document id of the request from sender to receiver. Both emails are URL-encoded, so the
+    // ':' separator is unambiguous and ids never contain '/'.
+    public static String edgeId(String senderEmail, String receiverEmail) {
+        return URLEncoder.encode(senderEmail, StandardCharsets.UTF_8) + ":"
+                + URLEncoder.encode(receiverEmail, StandardCharsets.UTF_8);
+    }
 
     public void sendFollowRequest(String senderEmail, String receiverEmail) throws Exception {
         FollowRequest request = new FollowRequest();
-        request.setId(UUID.randomUUID().toString());
+        request.setId(edgeId(senderEmail, receiverEmail));
         request.setSenderEmail(senderEmail);
         request.setReceiverEmail(receiverEmail);
         request.setStatus("pending");
 
         Firestore db = FirestoreClient.getFirestore();
-        db.collection(COLLECTION_NAME).document(request.getId()).set(request).get();
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(request.getId());
+        // A request that is already pending or accepted is left as it is
+        boolean created = db.runTransaction(transaction -> {
+            if (transaction.get(ref).get().exists()) {
+                return false;
+            }
+            transaction.create(ref, request);
+            return true;
+        }).get();
+        if (created) {
+            followGraph.addPending(request.getId(), senderEmail, receiverEmail);
+        }
     }
 
     public void acceptFollowRequest(String requestId) throws Exception {
         Firestore db = FirestoreClient.getFirestore();
         DocumentReference ref = db.collection(COLLECTION_NAME).document(requestId);
-        ref.update("status", "accepted").get();
+        // Accepting twice must not count twice, so the status check and counters share a transaction
+        DocumentSnapshot request = db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref).get();
+            if (!snapshot.exists()) {
+                throw new IllegalArgumentException("Follow request not found");
+            }
+            if ("accepted".equals(snapshot.getString("status"))) {
+                return snapshot;
+            }
+            String senderEmail = snapshot.getString("senderEmail");
+            String receiverEmail = snapshot.getString("receiverEmail");
+            List<DocumentSnapshot> users = transaction.getAll(userRef(db, senderEmail), userRef(db, receiverEmail)).get();
+            transaction.update(ref, "status", "accepted");
+            adjustCounter(transaction, users.get(0), FOLLOWING_COUNT, 1);
+            adjustCounter(transaction, users.get(1), FOLLOWERS_COUNT, 1);
+            return snapshot;
+        }).get();
+        followGraph.accept(requestId, request.getString("senderEmail"), request.getString("receiverEmail"));
     }
 
     public List<FollowRequest> getPendingRequests(String receiverEmail)
             throws InterruptedException, ExecutionException {
+        if (followGraph.isReady()) {
+            return followGraph.getPendingReceived(receiverEmail);
+        }
         Firestore db = FirestoreClient.getFirestore();
         Query query = db.collection(COLLECTION_NAME)
                 .whereEqualTo("receiverEmail", receiverEmail)
@@ -51,6 +113,9 @@ public class FollowRepository {
     }
 
     public List<FollowRequest> getFollowers(String userEmail) throws InterruptedException, ExecutionException {
+        if (followGraph.isReady()) {
+            return followGraph.getFollowers(userEmail);
+        }
         Firestore db = FirestoreClient.getFirestore();
         Query query = db.collection(COLLECTION_NAME)
                 .whereEqualTo("receiverEmail", userEmail)
@@ -65,6 +130,9 @@ public class FollowRepository {
     }
 
     public List<FollowRequest> getFollowing(String userEmail) throws InterruptedException, ExecutionException {
+        if (followGraph.isReady()) {
+            return followGraph.getFollowing(userEmail);
+        }
         Firestore db = FirestoreClient.getFirestore();
         Query query = db.collection(COLLECTION_NAME)
                 .whereEqualTo("senderEmail", userEmail)
@@ -80,6 +148,9 @@ public class FollowRepository {
     // ✅ Get follow status map for a sender
 
     public Map<String, String> getFollowStatuses(String senderEmail) throws Exception {
+        if (followGraph.isReady()) {
+            return followGraph.getStatuses(senderEmail);
+        }
         Firestore db = FirestoreClient.getFirestore();
         CollectionReference collection = db.collection(COLLECTION_NAME);
         ApiFuture<QuerySnapshot> future = collection
@@ -98,36 +169,348 @@ public class FollowRepository {
 
     // ✅ Unfollow: delete accepted follow entry
     public void unfollow(String senderEmail, String receiverEmail) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(edgeId(senderEmail, receiverEmail));
+        Query legacy = edgeIdsMigrated ? null : legacyRequests(db, senderEmail, receiverEmail, "accepted");
+
+        db.runTransaction(transaction -> {
+            List<DocumentSnapshot> docs = new ArrayList<>();
+            DocumentSnapshot edge = transaction.get(ref).get();
+            if (edge.exists() && "accepted".equals(edge.getString("status"))) {
+                docs.add(edge);
+            }
+            if (legacy != null) {
+                docs.addAll(transaction.get(legacy).get().getDocuments());
+            }
+            if (docs.isEmpty()) {
+                return null;
+            }
+            List<DocumentSnapshot> users = transaction.getAll(userRef(db, senderEmail), userRef(db, receiverEmail)).get();
+            for (DocumentSnapshot doc : docs) {
+                transaction.delete(doc.getReference());
+            }
+            adjustCounter(transaction, users.get(0), FOLLOWING_COUNT, -docs.size());
+            adjustCounter(transaction, users.get(1), FOLLOWERS_COUNT, -docs.size());
+            return null;
+        }).get();
+        followGraph.removeAccepted(senderEmail, receiverEmail);
+    }
+
+    // ✅ { followers, following } from the counters on the user document
+    public Map<String, Long> getFollowCounts(String email) throws ExecutionException, InterruptedException {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentSnapshot user = userRef(db, email).get().get();
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("followers", counterValue(user, FOLLOWERS_COUNT));
+        counts.put("following", counterValue(user, FOLLOWING_COUNT));
+        return counts;
+    }
+
+    // ✅ One page of accepted requests received (followers) or sent (following) by the user,
+    // ordered by request id. The cursor is the "nextCursor" of the previous page.
+    public Map<String, Object> getFollowPage(String email, boolean followers, int limit, String cursor)
+            throws ExecutionException, InterruptedException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIST_PAGE_SIZE));
         Firestore db = FirestoreClient.getFirestore();
         Query query = db.collection(COLLECTION_NAME)
-                .whereEqualTo("senderEmail", senderEmail)
-                .whereEqualTo("receiverEmail", receiverEmail)
-                .whereEqualTo("status", "accepted");
+                .whereEqualTo(followers ? "receiverEmail" : "senderEmail", email)
+                .whereEqualTo("status", "accepted")
+                .orderBy(FieldPath.documentId());
+        if (cursor != null && !cursor.isBlank()) {
+            query = query.startAfter(cursor);
+        }
+        List<QueryDocumentSnapshot> docs = query.limit(pageSize + 1).get().get().getDocuments();
+        boolean hasMore = docs.size() > pageSize;
+        if (hasMore) {
+            docs = docs.subList(0, pageSize);
+        }
 
-        ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
+        List<FollowRequest> requests = new ArrayList<>();
         for (DocumentSnapshot doc : docs) {
-            doc.getReference().delete();
+            FollowRequest request = doc.toObject(FollowRequest.class);
+            request.setId(doc.getId());
+            requests.add(request);
         }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("requests", requests);
+        page.put("nextCursor", hasMore ? docs.get(docs.size() - 1).getId() : null);
+        return page;
     }
 
-    // Cancel a pending follow request (can be done by sender or receiver)
-    public void cancelPendingRequest(String senderEmail, String receiverEmail) throws Exception {
+    // ✅ Delete every follow request the user sent or received and fix the other side's
+    // counters (account erasure). Returns the number of requests deleted.
+    public long removeAllFollowRequests(String email) throws ExecutionException, InterruptedException {
         Firestore db = FirestoreClient.getFirestore();
-        Query query = db.collection(COLLECTION_NAME)
+        long deleted = 0;
+        for (boolean sent : new boolean[] { true, false }) {
+            Query query = db.collection(COLLECTION_NAME)
+                    .whereEqualTo(sent ? "senderEmail" : "receiverEmail", email)
+                    .limit(PAGE_SIZE);
+            while (true) {
+                // Deleted documents drop out of the query, so each page is read from the start
+                List<QueryDocumentSnapshot> docs = query.get().get().getDocuments();
+                if (docs.isEmpty()) {
+                    break;
+                }
+                Map<String, Long> counterpartDeltas = new HashMap<>();
+                for (QueryDocumentSnapshot doc : docs) {
+                    if ("accepted".equals(doc.getString("status"))) {
+                        String other = doc.getString(sent ? "receiverEmail" : "senderEmail");
+                        if (other != null && !other.contains("/")) {
+                            counterpartDeltas.merge(other, -1L, Long::sum);
+                        }
+                    }
+                }
+
+                WriteBatch batch = db.batch();
+                docs.forEach(doc -> batch.delete(doc.getReference()));
+                if (!counterpartDeltas.isEmpty()) {
+                    DocumentReference[] refs = counterpartDeltas.keySet().stream()
+                            .map(other -> userRef(db, other))
+                            .toArray(DocumentReference[]::new);
+                    for (DocumentSnapshot other : db.getAll(refs).get()) {
+                        if (other.exists()) {
+                            batch.update(other.getReference(), sent ? FOLLOWERS_COUNT : FOLLOWING_COUNT,
+                                    FieldValue.increment(counterpartDeltas.get(other.getId())));
+                        }
+                    }
+                }
+                batch.commit().get();
+                deleted += docs.size();
+            }
+        }
+        followGraph.removeUser(email);
+        return deleted;
+    }
+
+    // One-off startup work, in order: move requests to edge ids, then backfill the counters
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        try {
+            migrateEdgeIds();
+        } catch (Exception e) {
+            logger.error("Follow request id migration failed", e);
+        }
+        backfillFollowCounters();
+    }
+
+    // ✅ Rewrite follow requests stored under random ids to their edge id, merging duplicates
+    // for the same pair (accepted wins). meta/followEdgeIds records that this has been done.
+    public void migrateEdgeIds() throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentReference marker = db.collection("meta").document("followEdgeIds");
+        Long version = marker.get().get().getLong("version");
+        if (version != null && version >= EDGE_IDS_VERSION) {
+            edgeIdsMigrated = true;
+            return;
+        }
+
+        // Group every request by pair first, so duplicates in different pages merge correctly
+        long start = System.currentTimeMillis();
+        Map<String, List<DocumentSnapshot>> byEdge = new HashMap<>();
+        Query base = db.collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .limit(PAGE_SIZE);
+        DocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : docs) {
+                String senderEmail = doc.getString("senderEmail");
+                String receiverEmail = doc.getString("receiverEmail");
+                if (senderEmail != null && receiverEmail != null) {
+                    byEdge.computeIfAbsent(edgeId(senderEmail, receiverEmail), key -> new ArrayList<>()).add(doc);
+                }
+            }
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+
+        // Each pair is moved in its own transaction that reads its documents again, so an accept,
+        // unfollow or cancel that lands after the scan is kept rather than overwritten
+        Semaphore inFlight = new Semaphore(MIGRATION_MAX_IN_FLIGHT);
+        List<ApiFuture<Integer>> moves = new ArrayList<>();
+        int moved = 0;
+        int duplicates = 0;
+        for (Map.Entry<String, List<DocumentSnapshot>> edge : byEdge.entrySet()) {
+            List<DocumentSnapshot> docs = edge.getValue();
+            if (docs.size() == 1 && docs.get(0).getId().equals(edge.getKey())) {
+                continue;
+            }
+            inFlight.acquire();
+            ApiFuture<Integer> move = moveEdge(db, edge.getKey(), docs);
+            move.addListener(inFlight::release, MoreExecutors.directExecutor());
+            moves.add(move);
+            moved += docs.size();
+            duplicates += docs.size() - 1;
+        }
+        int acceptedDuplicates = 0;
+        for (ApiFuture<Integer> move : moves) {
+            acceptedDuplicates += move.get();
+        }
+
+        if (acceptedDuplicates > 0) {
+            // Counters counted every duplicate; have the backfill count the merged edges again
+            db.collection("meta").document("followCounters").delete().get();
+        }
+        marker.set(Map.of("version", EDGE_IDS_VERSION, "migratedAt", FieldValue.serverTimestamp())).get();
+        edgeIdsMigrated = true;
+        logger.info("Follow requests migrated to edge ids: {} documents ({} duplicates merged) in {} ms",
+                moved, duplicates, System.currentTimeMillis() - start);
+        if (moved > 0) {
+            followGraph.rebuild();
+        }
+    }
+
+    // Users created before the counters existed get them once from the accepted requests;
+    // meta/followCounters records that this has been done. Each user is counted in a transaction
+    // that reads the user's accepted requests, so an accept or unfollow running at the same time
+    // either lands before the count or retries it, and is never overwritten.
+    public void backfillFollowCounters() {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentReference marker = db.collection("meta").document("followCounters");
+        try {
+            Long version = marker.get().get().getLong("version");
+            if (version != null && version >= COUNTERS_VERSION) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            Semaphore inFlight = new Semaphore(MIGRATION_MAX_IN_FLIGHT);
+            int users = 0;
+            Query base = db.collection(USERS)
+                    .select(FieldPath.documentId())
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                List<ApiFuture<Void>> counts = new ArrayList<>();
+                for (QueryDocumentSnapshot doc : docs) {
+                    inFlight.acquire();
+                    ApiFuture<Void> count = countFollows(db, doc.getId());
+                    count.addListener(inFlight::release, MoreExecutors.directExecutor());
+                    counts.add(count);
+                }
+                for (ApiFuture<Void> count : counts) {
+                    count.get();
+                }
+                users += docs.size();
+                if (docs.size() < PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+
+            marker.set(Map.of("version", COUNTERS_VERSION, "backfilledAt", FieldValue.serverTimestamp())).get();
+            logger.info("Follow counters backfilled for {} users in {} ms", users, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Follow counter backfill failed", e);
+        }
+    }
+
+    // Set the user's counters to the number of accepted requests they sent and received
+    private static ApiFuture<Void> countFollows(Firestore db, String email) {
+        DocumentReference user = userRef(db, email);
+        AggregateQuery followers = db.collection(COLLECTION_NAME)
+                .whereEqualTo("receiverEmail", email).whereEqualTo("status", "accepted").count();
+        AggregateQuery following = db.collection(COLLECTION_NAME)
+                .whereEqualTo("senderEmail", email).whereEqualTo("status", "accepted").count();
+        return db.runTransaction(transaction -> {
+            if (!transaction.get(user).get().exists()) {
+                return null;
+            }
+            long followersCount = transaction.get(followers).get().getCount();
+            long followingCount = transaction.get(following).get().getCount();
+            transaction.update(user, FOLLOWERS_COUNT, followersCount, FOLLOWING_COUNT, followingCount);
+            return null;
+        });
+    }
+
+    // Merge the pair's documents that still exist into the edge-id document (accepted wins) and
+    // delete the others. Returns how many accepted copies were merged away.
+    private static ApiFuture<Integer> moveEdge(Firestore db, String edgeId, List<DocumentSnapshot> scanned) {
+        DocumentReference target = db.collection(COLLECTION_NAME).document(edgeId);
+        Set<DocumentReference> refs = new LinkedHashSet<>();
+        refs.add(target);
+        scanned.forEach(doc -> refs.add(doc.getReference()));
+        return db.runTransaction(transaction -> {
+            List<DocumentSnapshot> docs = new ArrayList<>();
+            for (DocumentSnapshot doc : transaction.getAll(refs.toArray(new DocumentReference[0])).get()) {
+                if (doc.exists()) {
+                    docs.add(doc);
+                }
+            }
+            if (docs.isEmpty()) {
+                return 0; // unfollowed or cancelled meanwhile
+            }
+            long acceptedCopies = docs.stream().filter(doc -> "accepted".equals(doc.getString("status"))).count();
+            DocumentSnapshot first = docs.get(0);
+            FollowRequest request = new FollowRequest();
+            request.setId(edgeId);
+            request.setSenderEmail(first.getString("senderEmail"));
+            request.setReceiverEmail(first.getString("receiverEmail"));
+            request.setStatus(acceptedCopies > 0 ? "accepted" : "pending");
+            transaction.set(target, request);
+            for (DocumentSnapshot doc : docs) {
+                if (!doc.getId().equals(edgeId)) {
+                    transaction.delete(doc.getReference());
+                }
+            }
+            return (int) Math.max(0, acceptedCopies - 1);
+        });
+    }
+
+    // Requests for the pair still stored under a random id
+    private static Query legacyRequests(Firestore db, String senderEmail, String receiverEmail, String status) {
+        return db.collection(COLLECTION_NAME)
                 .whereEqualTo("senderEmail", senderEmail)
                 .whereEqualTo("receiverEmail", receiverEmail)
-                .whereEqualTo("status", "pending");
+                .whereEqualTo("status", status);
+    }
 
-        ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
+    private static DocumentReference userRef(Firestore db, String email) {
+        return db.collection(USERS).document(email);
+    }
 
-        for (DocumentSnapshot doc : docs) {
-            doc.getReference().delete(); // delete the pending request
+    // Counters only live on existing user documents; a deleted account is not recreated
+    private static void adjustCounter(Transaction transaction, DocumentSnapshot user, String field, long delta) {
+        if (user.exists()) {
+            transaction.update(user.getReference(), field, FieldValue.increment(delta));
         }
     }
 
+    private static long counterValue(DocumentSnapshot user, String field) {
+        Long value = user.exists() ? user.getLong(field) : null;
+        return value == null ? 0 : Math.max(0, value);
+    }
+
+    // Cancel a pending follow request (can be done by sender or receiver)
+    public void cancelPendingRequest(String senderEmail, String receiverEmail) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(edgeId(senderEmail, receiverEmail));
+        Query legacy = edgeIdsMigrated ? null : legacyRequests(db, senderEmail, receiverEmail, "pending");
+
+        // Only a still-pending request is deleted; one accepted meanwhile stays
+        db.runTransaction(transaction -> {
+            DocumentSnapshot edge = transaction.get(ref).get();
+            List<QueryDocumentSnapshot> legacyDocs = legacy == null
+                    ? List.of() : transaction.get(legacy).get().getDocuments();
+            if (edge.exists() && "pending".equals(edge.getString("status"))) {
+                transaction.delete(ref);
+            }
+            legacyDocs.forEach(doc -> transaction.delete(doc.getReference()));
+            return null;
+        }).get();
+        followGraph.removePending(senderEmail, receiverEmail);
+    }
+
     public List<FollowRequest> getPendingSentRequests(String senderEmail) throws Exception {
+        if (followGraph.isReady()) {
+            return followGraph.getPendingSent(senderEmail);
+        }
         Firestore db = FirestoreClient.getFirestore();
         Query query = db.collection(COLLECTION_NAME)
                 .whereEqualTo("senderEmail", senderEmail)
@@ -141,6 +524,8 @@ public class FollowRepository {
         }
         return requests;
     }
-    
 
+    public Map<String, Object> getGraphStats() {
+        return followGraph.getStats();
+    }
 }
@@ -3,16 +3,30 @@ package com.designhive.repository;
 import com.designhive.entity.LearningPlan;
 import com.designhive.entity.Task;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 
 @Repository
 public class LearningPlanRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(LearningPlanRepository.class);
+    private static final long TASK_MAP_VERSION = 2; // 2: also merges arrays left behind next to a taskMap
+    private static final int MIGRATION_PAGE_SIZE = 200;
+    private static final int EXPORT_PAGE_SIZE = 200;
+    private static final long TIMESTAMPS_VERSION = 1;
+    private static final String[] SUMMARY_FIELDS = { "userId", "title", "description", "status", "progress",
+            "totalTasks", "completedTasks", "startDate", "endDate", "createdAt", "updatedAt" };
+
     private final Firestore firestore;
 
     @Autowired
@@ -40,16 +54,7 @@ public class LearningPlanRepository {
 
     // Get a learning plan by its ID
     public LearningPlan findById(String id) throws ExecutionException, InterruptedException {
-        DocumentSnapshot documentSnapshot = getLearningPlansCollection().document(id).get().get();
-        if (documentSnapshot.exists()) {
-            LearningPlan plan = documentSnapshot.toObject(LearningPlan.class);
-            if (plan != null) {
-                plan.setId(documentSnapshot.getId()); // ✅ Set the ID manually
-            }
-            return plan;
-        } else {
-            return null; // Return null if the document doesn't exist
-        }
+        return toPlan(getLearningPlansCollection().document(id).get().get()); // null if the document doesn't exist
     }
 
     // Find learning plans by user ID
@@ -59,16 +64,73 @@ public class LearningPlanRepository {
                 .get();
 
         QuerySnapshot querySnapshot = future.get();
-        List<LearningPlan> plans = querySnapshot.toObjects(LearningPlan.class);
+        List<LearningPlan> plans = new ArrayList<>();
 
-        // ✅ Set the IDs manually
-        for (int i = 0; i < plans.size(); i++) {
-            plans.get(i).setId(querySnapshot.getDocuments().get(i).getId());
+        // ✅ toPlan sets the IDs and picks up tasks still in the legacy array
+        for (QueryDocumentSnapshot doc : querySnapshot.getDocuments()) {
+            plans.add(toPlan(doc));
         }
 
         return plans;
     }
 
+    // Write many plans in one batch (at most 500), under their own ids when set. A plan already
+    // stored under an id is replaced only with overwrite. Missing ids are assigned before the commit.
+    public ApiFuture<List<WriteResult>> saveBatch(List<LearningPlan> plans, boolean overwrite) {
+        WriteBatch batch = firestore.batch();
+        for (LearningPlan plan : plans) {
+            DocumentReference docRef = plan.getId() == null
+                    ? getLearningPlansCollection().document() : getLearningPlansCollection().document(plan.getId());
+            plan.setId(docRef.getId());
+            if (overwrite) {
+                batch.set(docRef, plan);
+            } else {
+                batch.create(docRef, plan); // fails the whole batch if any plan already exists
+            }
+        }
+        return batch.commit();
+    }
+
+    // Hand every plan (optionally only one user's) to the consumer, reading a page at a time
+    public long forEachPlan(String userId, PlanConsumer consumer) throws Exception {
+        Query base = userId == null ? getLearningPlansCollection() : getLearningPlansCollection().whereEqualTo("userId", userId);
+        base = base.orderBy(FieldPath.documentId()).limit(EXPORT_PAGE_SIZE);
+        long count = 0;
+        DocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : docs) {
+                consumer.accept(toPlan(doc));
+                count++;
+            }
+            if (docs.size() < EXPORT_PAGE_SIZE) {
+                return count;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+    }
+
+    // Plan headers and progress for a user, without the tasks
+    public List<Map<String, Object>> findSummariesByUserId(String userId) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = getLearningPlansCollection()
+                .whereEqualTo("userId", userId)
+                .select(SUMMARY_FIELDS)
+                .get().get().getDocuments();
+
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : docs) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("id", doc.getId());
+            for (String field : SUMMARY_FIELDS) {
+                Object value = doc.get(field);
+                // Same ISO-8601 form as LearningPlan's JSON
+                summary.put(field, value instanceof Timestamp ? ((Timestamp) value).toDate().toInstant().toString() : value);
+            }
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
     // Delete a learning plan by ID
     public boolean deleteById(String id) throws ExecutionException, InterruptedException {
         DocumentReference docRef = getLearningPlansCollection().document(id);
@@ -77,55 +139,322 @@ public class LearningPlanRepository {
         return true;
     }
 
-    // Add task to a learning plan
+    // Add task to a learning plan. The task and the counters are written by field path in one
+    // transaction, so concurrent task edits on the same plan never overwrite each other.
     public LearningPlan addTask(String planId, Task task) throws ExecutionException, InterruptedException {
-        LearningPlan plan = findById(planId);
-        if (plan == null) {
-            return null; // Plan not found
-        }
+        DocumentReference docRef = getLearningPlansCollection().document(planId);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            LearningPlan plan = toPlan(snapshot);
+            if (plan == null) {
+                return null; // Plan not found
+            }
+            if (plan.getTasks() == null) {
+                plan.setTasks(new ArrayList<>());
+            }
 
-        task.setId(generateTaskId());
-        plan.getTasks().add(task);
+            long position = plan.getTasks().stream().mapToLong(Task::getPosition).max().orElse(-1) + 1;
+            task.setPosition(position);
+            plan.getTasks().add(task);
+            int completedDelta = task.isCompleted() ? 1 : 0;
+            plan.setTotalTasks(plan.getTotalTasks() + 1);
+            plan.setCompletedTasks(plan.getCompletedTasks() + completedDelta);
+            plan.setProgress(calculateProgress(plan.getCompletedTasks(), plan.getTotalTasks()));
+            plan.setUpdatedAt(Timestamp.now());
 
-        return save(plan);
+            if (hasLegacyTasks(snapshot)) {
+                writeAllTasks(transaction, docRef, plan);
+                return plan;
+            }
+            transaction.update(docRef,
+                    FieldPath.of("taskMap", task.getId()), task,
+                    FieldPath.of("totalTasks"), FieldValue.increment(1),
+                    FieldPath.of("completedTasks"), FieldValue.increment(completedDelta),
+                    FieldPath.of("progress"), plan.getProgress(),
+                    FieldPath.of("updatedAt"), plan.getUpdatedAt());
+            return plan;
+        }).get();
     }
 
-    // Update task in a learning plan
+    // Update task in a learning plan (only that task's fields are written)
     public LearningPlan updateTask(String planId, String taskId, Task updatedTask) throws ExecutionException, InterruptedException {
-        LearningPlan plan = findById(planId);
-        if (plan == null) {
-            return null; // Plan not found
+        DocumentReference docRef = getLearningPlansCollection().document(planId);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            LearningPlan plan = toPlan(snapshot);
+            if (plan == null) {
+                return null; // Plan not found
+            }
+            Task task = findTask(plan, taskId);
+            if (task == null) {
+                return plan;
+            }
+
+            int completedDelta = (updatedTask.isCompleted() ? 1 : 0) - (task.isCompleted() ? 1 : 0);
+            task.setTitle(updatedTask.getTitle());
+            task.setDescription(updatedTask.getDescription());
+            task.setCompleted(updatedTask.isCompleted());
+            plan.setCompletedTasks(plan.getCompletedTasks() + completedDelta);
+            plan.setProgress(calculateProgress(plan.getCompletedTasks(), plan.getTotalTasks()));
+            plan.setUpdatedAt(Timestamp.now());
+
+            if (hasLegacyTasks(snapshot)) {
+                writeAllTasks(transaction, docRef, plan);
+                return plan;
+            }
+            transaction.update(docRef,
+                    FieldPath.of("taskMap", taskId, "title"), task.getTitle(),
+                    FieldPath.of("taskMap", taskId, "description"), task.getDescription(),
+                    FieldPath.of("taskMap", taskId, "completed"), task.isCompleted(),
+                    FieldPath.of("completedTasks"), FieldValue.increment(completedDelta),
+                    FieldPath.of("progress"), plan.getProgress(),
+                    FieldPath.of("updatedAt"), plan.getUpdatedAt());
+            return plan;
+        }).get();
+    }
+
+    // Delete task from a learning plan
+    public boolean deleteTask(String planId, String taskId) throws ExecutionException, InterruptedException {
+        DocumentReference docRef = getLearningPlansCollection().document(planId);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            LearningPlan plan = toPlan(snapshot);
+            Task task = plan == null ? null : findTask(plan, taskId);
+            if (task == null) {
+                return false; // Plan or task not found
+            }
+
+            if (hasLegacyTasks(snapshot)) {
+                plan.getTasks().remove(task);
+                plan.setTotalTasks(plan.getTasks().size());
+                plan.setCompletedTasks(plan.getCompletedTasks() - (task.isCompleted() ? 1 : 0));
+                plan.setProgress(calculateProgress(plan.getCompletedTasks(), plan.getTotalTasks()));
+                plan.setUpdatedAt(Timestamp.now());
+                writeAllTasks(transaction, docRef, plan);
+                return true;
+            }
+            int completedDelta = task.isCompleted() ? -1 : 0;
+            int progress = calculateProgress(plan.getCompletedTasks() + completedDelta, plan.getTotalTasks() - 1);
+            transaction.update(docRef,
+                    FieldPath.of("taskMap", taskId), FieldValue.delete(),
+                    FieldPath.of("totalTasks"), FieldValue.increment(-1),
+                    FieldPath.of("completedTasks"), FieldValue.increment(completedDelta),
+                    FieldPath.of("progress"), progress,
+                    FieldPath.of("updatedAt"), Timestamp.now());
+            return true;
+        }).get();
+    }
+
+    // ✅ Progress (0 to 100) from the task counters
+    public static int calculateProgress(long completedTasks, long totalTasks) {
+        if (totalTasks <= 0) return 0;
+        return (int) ((Math.max(0, completedTasks) * 100.0f) / totalTasks);
+    }
+
+    // One-off startup migrations of older plan documents
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        migrateTimestamps();
+        migrateTaskMaps();
+    }
+
+    // Plans written before tasks were keyed by id hold a "tasks" array; move each one to
+    // taskMap with its counters once. meta/learningPlanTasks records that this has been done.
+    // Until then toPlan and the task transactions fold the array in themselves, so a plan
+    // edited before the migration reaches it keeps its old tasks. Each plan is moved in its
+    // own transaction, merging into any taskMap a live edit has already written.
+    public void migrateTaskMaps() {
+        DocumentReference marker = firestore.collection("meta").document("learningPlanTasks");
+        try {
+            Long version = marker.get().get().getLong("version");
+            if (version != null && version >= TASK_MAP_VERSION) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            int migrated = 0;
+            Query base = getLearningPlansCollection().orderBy(FieldPath.documentId()).limit(MIGRATION_PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                List<ApiFuture<Boolean>> moves = new ArrayList<>();
+                for (QueryDocumentSnapshot doc : docs) {
+                    if (doc.contains("taskMap") && !hasLegacyTasks(doc)) {
+                        continue;
+                    }
+                    DocumentReference docRef = doc.getReference();
+                    moves.add(firestore.runTransaction(transaction -> {
+                        DocumentSnapshot snapshot = transaction.get(docRef).get();
+                        if (!snapshot.exists() || (snapshot.contains("taskMap") && !hasLegacyTasks(snapshot))) {
+                            return false;
+                        }
+                        LearningPlan plan = toPlan(snapshot);
+                        if (plan.getTasks() == null) {
+                            plan.setTasks(new ArrayList<>());
+                        }
+                        plan.setProgress(calculateProgress(plan.getCompletedTasks(), plan.getTotalTasks()));
+                        writeAllTasks(transaction, docRef, plan);
+                        return true;
+                    }));
+                }
+                for (ApiFuture<Boolean> move : moves) {
+                    if (move.get()) {
+                        migrated++;
+                    }
+                }
+                if (docs.size() < MIGRATION_PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+
+            marker.set(Map.of("version", TASK_MAP_VERSION, "migratedAt", FieldValue.serverTimestamp())).get();
+            logger.info("Learning plan tasks moved to task maps for {} plans in {} ms",
+                    migrated, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Learning plan task migration failed", e);
         }
+    }
 
-        for (Task task : plan.getTasks()) {
-            if (task.getId().equals(taskId)) {
-                task.setTitle(updatedTask.getTitle());
-                task.setDescription(updatedTask.getDescription());
-                task.setCompleted(updatedTask.isCompleted());
-                break;
+    // createdAt/updatedAt used to be "yyyy-MM-dd HH:mm:ss" strings in the server's time zone;
+    // convert them to timestamps once. meta/learningPlanTimestamps records that this has been done.
+    // Plans are readable either way (see LearningPlan.setCreatedAtValue); this makes them indexable.
+    public void migrateTimestamps() {
+        DocumentReference marker = firestore.collection("meta").document("learningPlanTimestamps");
+        try {
+            Long version = marker.get().get().getLong("version");
+            if (version != null && version >= TIMESTAMPS_VERSION) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            int migrated = 0;
+            int conflicts = 0;
+            Query base = getLearningPlansCollection()
+                    .select("createdAt", "updatedAt")
+                    .orderBy(FieldPath.documentId())
+                    .limit(MIGRATION_PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                // Each update only applies if the plan is unchanged since it was read, so a live
+                // write in between is never overwritten; such plans are converted on the next start
+                List<ApiFuture<WriteResult>> updates = new ArrayList<>();
+                for (QueryDocumentSnapshot doc : docs) {
+                    Object createdAt = doc.get("createdAt");
+                    Object updatedAt = doc.get("updatedAt");
+                    if (createdAt instanceof Timestamp && updatedAt instanceof Timestamp) {
+                        continue;
+                    }
+                    Timestamp created = LearningPlan.toTimestamp(createdAt);
+                    Timestamp updated = LearningPlan.toTimestamp(updatedAt);
+                    if (created == null) created = updated != null ? updated : Timestamp.now();
+                    if (updated == null) updated = created;
+                    updates.add(doc.getReference().update(Precondition.updatedAt(doc.getUpdateTime()),
+                            "createdAt", created, "updatedAt", updated));
+                }
+                for (ApiFuture<WriteResult> update : updates) {
+                    try {
+                        update.get();
+                        migrated++;
+                    } catch (ExecutionException e) {
+                        conflicts++;
+                    }
+                }
+                if (docs.size() < MIGRATION_PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+
+            if (conflicts == 0) {
+                marker.set(Map.of("version", TIMESTAMPS_VERSION, "migratedAt", FieldValue.serverTimestamp())).get();
             }
+            logger.info("Learning plan timestamps converted for {} plans in {} ms ({} changed meanwhile, retried next start)",
+                    migrated, System.currentTimeMillis() - start, conflicts);
+        } catch (Exception e) {
+            logger.error("Learning plan timestamp migration failed", e);
         }
+    }
 
-        return save(plan);
+    private LearningPlan toPlan(DocumentSnapshot documentSnapshot) {
+        if (!documentSnapshot.exists()) {
+            return null;
+        }
+        LearningPlan plan = documentSnapshot.toObject(LearningPlan.class);
+        if (plan != null) {
+            plan.setId(documentSnapshot.getId());
+            if (hasLegacyTasks(documentSnapshot)) {
+                mergeLegacyTasks(plan, (List<?>) documentSnapshot.get("tasks"));
+            }
+        }
+        return plan;
     }
 
-    // Delete task from a learning plan
-    public boolean deleteTask(String planId, String taskId) throws ExecutionException, InterruptedException {
-        LearningPlan plan = findById(planId);
-        if (plan == null) {
-            return false; // Plan not found
+    private static boolean hasLegacyTasks(DocumentSnapshot documentSnapshot) {
+        return documentSnapshot.get("tasks") instanceof List;
+    }
+
+    // Append the tasks of a not yet migrated "tasks" array after those already in taskMap
+    // (an entry in taskMap wins) and recount, since the counters were never kept for the array.
+    // Tasks stored without an id get one from their index, so it is the same on every read.
+    static void mergeLegacyTasks(LearningPlan plan, List<?> legacyTasks) {
+        List<Task> tasks = plan.getTasks() == null ? new ArrayList<>() : new ArrayList<>(plan.getTasks());
+        Set<String> ids = new HashSet<>();
+        long position = 0;
+        for (Task task : tasks) {
+            ids.add(task.getId());
+            position = Math.max(position, task.getPosition() + 1);
         }
+        for (int i = 0; i < legacyTasks.size(); i++) {
+            if (!(legacyTasks.get(i) instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> item = (Map<?, ?>) legacyTasks.get(i);
+            Object id = item.get("id");
+            String taskId = id == null || id.toString().isEmpty() ? "legacy-" + i : id.toString();
+            if (!ids.add(taskId)) {
+                continue;
+            }
+            Object title = item.get("title");
+            Object description = item.get("description");
+            Task task = new Task(taskId, title == null ? null : title.toString(),
+                    description == null ? null : description.toString(), Boolean.TRUE.equals(item.get("completed")));
+            task.setPosition(position++);
+            tasks.add(task);
+        }
+        plan.setTasks(tasks);
+        plan.setTotalTasks(tasks.size());
+        plan.setCompletedTasks((int) tasks.stream().filter(Task::isCompleted).count());
+    }
 
-        boolean taskRemoved = plan.getTasks().removeIf(task -> task.getId().equals(taskId));
-        if (taskRemoved) {
-            save(plan);
+    // Rewrite a plan that still has the legacy array: the whole taskMap and absolute counters
+    private static void writeAllTasks(Transaction transaction, DocumentReference docRef, LearningPlan plan) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("taskMap", plan.getTaskMap());
+        updates.put("totalTasks", plan.getTotalTasks());
+        updates.put("completedTasks", plan.getCompletedTasks());
+        updates.put("progress", plan.getProgress());
+        updates.put("tasks", FieldValue.delete());
+        if (plan.getUpdatedAt() != null) {
+            updates.put("updatedAt", plan.getUpdatedAt());
         }
+        transaction.update(docRef, updates);
+    }
 
-        return taskRemoved;
+    private static Task findTask(LearningPlan plan, String taskId) {
+        if (plan.getTasks() == null) {
+            return null;
+        }
+        for (Task task : plan.getTasks()) {
+            if (taskId.equals(task.getId())) {
+                return task;
+            }
+        }
+        return null;
     }
 
-    // Generate unique task ID
-    private String generateTaskId() {
-        return Long.toString(System.currentTimeMillis()); // Simple ID based on timestamp
+    public interface PlanConsumer {
+        void accept(LearningPlan plan) throws Exception;
     }
 }
@@ -0,0 +1,166 @@
+package com.designhive.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// In-process cache of user documents, keyed by email (the document id) with a secondary
+// index on the "id" field. Entries expire after a TTL and the least recently used entry
+// is dropped once the cache is full. Snapshots are immutable, so every caller still
+// gets its own User object from toObject().
+//
+// A load that started before an invalidation must not put its (possibly stale) snapshot back
+// for a full TTL. Callers take loadGeneration() before reading Firestore and hand it to put();
+// the put is dropped when the email was invalidated after that point. Invalidations are
+// remembered for up to maxSize emails; once older ones are forgotten, loads that started
+// before the forgotten ones are dropped for every email.
+@Component
+public class UserProfileCache {
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final LinkedHashMap<String, Entry> byEmail = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> emailById = new HashMap<>();
+    private final LinkedHashMap<String, Long> invalidatedAt = new LinkedHashMap<>();
+
+    private long generation;
+    private long oldestTrusted;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long staleLoads;
+
+    public UserProfileCache(@Value("${user.cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${user.cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized DocumentSnapshot getByEmail(String email) {
+        Entry entry = byEmail.get(email);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired()) {
+            remove(email);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.doc;
+    }
+
+    public synchronized DocumentSnapshot getById(String id) {
+        String email = emailById.get(id);
+        if (email == null) {
+            misses++;
+            return null;
+        }
+        return getByEmail(email);
+    }
+
+    // ✅ Marks the start of a load; pass the result to put()
+    public synchronized long loadGeneration() {
+        return generation;
+    }
+
+    public synchronized void put(DocumentSnapshot doc, long loadGeneration) {
+        if (doc == null || !doc.exists()) {
+            return;
+        }
+        String email = doc.getId();
+        Long invalidated = invalidatedAt.get(email);
+        if (loadGeneration < oldestTrusted || (invalidated != null && invalidated > loadGeneration)) {
+            staleLoads++;
+            return;
+        }
+        remove(email);
+        byEmail.put(email, new Entry(doc, System.currentTimeMillis() + ttlMillis));
+        String id = doc.getString("id");
+        if (id != null) {
+            emailById.put(id, email);
+        }
+
+        Iterator<Map.Entry<String, Entry>> eldest = byEmail.entrySet().iterator();
+        while (byEmail.size() > maxSize && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            dropIdIndex(evicted);
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        remove(email);
+        generation++;
+        invalidatedAt.remove(email);
+        invalidatedAt.put(email, generation);
+        Iterator<Long> oldest = invalidatedAt.values().iterator();
+        while (invalidatedAt.size() > maxSize && oldest.hasNext()) {
+            oldestTrusted = oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        byEmail.clear();
+        emailById.clear();
+        invalidatedAt.clear();
+        generation++;
+        oldestTrusted = generation;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", byEmail.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("staleLoads", staleLoads);
+        long lookups = hits + misses;
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        return stats;
+    }
+
+    private void remove(String email) {
+        Entry removed = byEmail.remove(email);
+        if (removed != null) {
+            dropIdIndex(removed);
+        }
+    }
+
+    private void dropIdIndex(Entry entry) {
+        String id = entry.doc.getString("id");
+        if (id != null && entry.doc.getId().equals(emailById.get(id))) {
+            emailById.remove(id);
+        }
+    }
+
+    private static class Entry {
+        private final DocumentSnapshot doc;
+        private final long expiresAt;
+
+        private Entry(DocumentSnapshot doc, long expiresAt) {
+            this.doc = doc;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
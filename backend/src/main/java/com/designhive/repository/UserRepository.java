@@ -3,8 +3,10 @@ package com.designhive.repository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.google.api.core.ApiFuture;
@@ -13,6 +15,7 @@ import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
 import com.google.firebase.cloud.FirestoreClient;
 import com.designhive.entity.User;
 
@@ -21,23 +24,70 @@ public class UserRepository {
 
     private static final String COLLECTION_NAME = "users";
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     public void saveUser(User user) throws ExecutionException, InterruptedException {
         Firestore db = FirestoreClient.getFirestore();
-        db.collection(COLLECTION_NAME).document(user.getEmail()).set(user).get();
+        try {
+            // Merge so fields the entity does not map (e.g. follow counters) survive a profile save
+            db.collection(COLLECTION_NAME).document(user.getEmail()).set(user, SetOptions.merge()).get();
+        } finally {
+            userProfileCache.invalidate(user.getEmail());
+        }
     }
 
     public User getUserByEmail(String email) throws ExecutionException, InterruptedException {
+        DocumentSnapshot document = getUserDocumentByEmail(email);
+        return document != null ? document.toObject(User.class) : null;
+    }
+
+    public User getUserById(String id) throws ExecutionException, InterruptedException {
+        DocumentSnapshot cached = userProfileCache.getById(id);
+        if (cached != null) {
+            return cached.toObject(User.class);
+        }
+
+        long loadGeneration = userProfileCache.loadGeneration();
+        Firestore db = FirestoreClient.getFirestore();
+        List<QueryDocumentSnapshot> documents = db.collection(COLLECTION_NAME)
+                .whereEqualTo("id", id).limit(1).get().get().getDocuments();
+        if (documents.isEmpty()) {
+            return null;
+        }
+        userProfileCache.put(documents.get(0), loadGeneration);
+        return documents.get(0).toObject(User.class);
+    }
+
+    // ✅ Raw user document by email, served from the profile cache when possible
+    public DocumentSnapshot getUserDocumentByEmail(String email) throws ExecutionException, InterruptedException {
+        DocumentSnapshot cached = userProfileCache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = userProfileCache.loadGeneration();
         Firestore db = FirestoreClient.getFirestore();
         DocumentReference docRef = db.collection(COLLECTION_NAME).document(email);
         ApiFuture<DocumentSnapshot> future = docRef.get();
         DocumentSnapshot document = future.get();
 
         if (document.exists()) {
-            return document.toObject(User.class);
+            userProfileCache.put(document, loadGeneration);
+            return document;
         }
         return null;
     }
 
+    public void deleteUser(String email) throws ExecutionException, InterruptedException {
+        Firestore db = FirestoreClient.getFirestore();
+        try {
+            db.collection(COLLECTION_NAME).document(email).delete().get();
+        } finally {
+            userProfileCache.invalidate(email);
+        }
+    }
+
     public List<User> getAllUsers() throws Exception {
         Firestore db = FirestoreClient.getFirestore();
         ApiFuture<QuerySnapshot> future = db.collection(COLLECTION_NAME).get();
@@ -50,5 +100,8 @@ public class UserRepository {
 
         return users;
     }
-}
 
+    public Map<String, Object> getCacheStats() {
+        return userProfileCache.getStats();
+    }
+}
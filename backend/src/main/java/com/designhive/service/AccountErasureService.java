@@ -0,0 +1,376 @@
+package com.designhive.service;
+
+import com.designhive.entity.User;
+import com.designhive.repository.FollowRepository;
+import com.designhive.repository.UserRepository;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Erases an account and everything it owns, in the background. Each erasure has a job record
+// in erasureJobs/{email} listing the steps already finished, so a job interrupted by a restart
+// is picked up again and continues from the first unfinished step. Every step is safe to
+// repeat. The user document goes first so the account disappears immediately.
+// A periodic sweep (also run at startup) resumes unfinished jobs and retries failed ones with
+// exponential backoff. Each job runs under a JobLease, so only one instance works on it.
+@Service
+public class AccountErasureService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountErasureService.class);
+    private static final String JOBS = "erasureJobs";
+    private static final int PAGE_SIZE = 100;
+    private static final String LEASE_PREFIX = "accountErasure-";
+    private static final long LEASE_MILLIS = 5 * 60 * 1000;
+    private static final long LEASE_RENEW_MILLIS = 60 * 1000;
+
+    private static final String STEP_USER = "user";
+    private static final String STEP_POSTS = "posts";
+    private static final String STEP_COMMENTS = "comments";
+    private static final String STEP_LIKES = "likes";
+    private static final String STEP_FOLLOWS = "followRequests";
+    private static final String STEP_CHATS = "chats";
+    private static final String STEP_LEARNING_PLANS = "learningPlans";
+    private static final String STEP_TIMELINE = "timeline";
+    private static final String STEP_SUGGESTIONS = "suggestions";
+    private static final List<String> STEPS = List.of(STEP_USER, STEP_POSTS, STEP_COMMENTS, STEP_LIKES,
+            STEP_FOLLOWS, STEP_CHATS, STEP_LEARNING_PLANS, STEP_TIMELINE, STEP_SUGGESTIONS);
+
+    private final Firestore firestore;
+    private final UserRepository userRepository;
+    private final PostService postService;
+    private final ChatService chatService;
+    private final BulkDeleter bulkDeleter;
+    private final FollowRepository followRepository;
+    private final LearningPlanAnalyticsService learningPlanAnalyticsService;
+    private final JobLease jobLease;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+    private final long sweepSeconds;
+
+    private final ExecutorService jobs = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "account-erasure"));
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "account-erasure-scheduler"));
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+
+    @Autowired
+    public AccountErasureService(Firestore firestore, UserRepository userRepository, PostService postService,
+                                 ChatService chatService, BulkDeleter bulkDeleter, FollowRepository followRepository,
+                                 LearningPlanAnalyticsService learningPlanAnalyticsService, JobLease jobLease,
+                                 @Value("${erasure.parallelism:4}") int parallelism,
+                                 @Value("${erasure.retry.base-seconds:60}") long retryBaseSeconds,
+                                 @Value("${erasure.retry.max-seconds:3600}") long retryMaxSeconds,
+                                 @Value("${erasure.sweep-seconds:60}") long sweepSeconds) {
+        this.firestore = firestore;
+        this.userRepository = userRepository;
+        this.postService = postService;
+        this.chatService = chatService;
+        this.bulkDeleter = bulkDeleter;
+        this.followRepository = followRepository;
+        this.learningPlanAnalyticsService = learningPlanAnalyticsService;
+        this.jobLease = jobLease;
+        this.retryBaseMillis = Math.max(1, retryBaseSeconds) * 1000;
+        this.retryMaxMillis = Math.max(retryBaseSeconds, retryMaxSeconds) * 1000;
+        this.sweepSeconds = Math.max(1, sweepSeconds);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                runnable -> daemon(runnable, "account-erasure-" + threadCount.incrementAndGet()));
+    }
+
+    // ✅ Record an erasure job for the account and run it in the background. Once the user is
+    // gone, calling this again re-runs an existing job straight away (e.g. a failed one).
+    public void requestErasure(String email) throws ExecutionException, InterruptedException {
+        if (email == null || email.isBlank() || email.contains("/")) {
+            throw new IllegalArgumentException("Invalid email");
+        }
+        DocumentReference jobRef = firestore.collection(JOBS).document(email);
+        User user = userRepository.getUserByEmail(email);
+        if (user == null && !jobRef.get().get().exists()) {
+            throw new IllegalArgumentException("User not found");
+        }
+
+        if (user != null) {
+            Map<String, Object> job = new HashMap<>();
+            job.put("email", email);
+            job.put("userId", user.getId());
+            job.put("status", "pending");
+            job.put("completedSteps", new ArrayList<String>());
+            job.put("deletedByStep", new HashMap<String, Object>());
+            job.put("documentsDeleted", 0);
+            job.put("attempts", 0);
+            job.put("retryAt", FieldValue.delete());
+            job.put("requestedAt", Timestamp.now());
+            jobRef.set(job, SetOptions.merge()).get();
+        }
+        submit(email);
+    }
+
+    public Map<String, Object> getJob(String email) throws ExecutionException, InterruptedException {
+        DocumentSnapshot job = firestore.collection(JOBS).document(email).get().get();
+        return job.exists() ? job.getData() : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queuedJobs", queued.size());
+        stats.put("completedJobs", completedJobs.get());
+        stats.put("failedJobs", failedJobs.get());
+        stats.put("bulkDelete", bulkDeleter.getStats());
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeping() {
+        scheduler.scheduleWithFixedDelay(this::resumeUnfinishedJobs, 0, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    // Resume jobs left pending or running (e.g. by a restart) and failed jobs whose retry is due.
+    // A job running on another instance is skipped by run(), which cannot take its lease.
+    public void resumeUnfinishedJobs() {
+        try {
+            List<QueryDocumentSnapshot> unfinished = firestore.collection(JOBS)
+                    .whereIn("status", List.of("pending", "running", "failed"))
+                    .get().get().getDocuments();
+            Timestamp now = Timestamp.now();
+            for (QueryDocumentSnapshot job : unfinished) {
+                Timestamp retryAt = job.getTimestamp("retryAt");
+                if ("failed".equals(job.getString("status")) && retryAt != null && retryAt.compareTo(now) > 0) {
+                    continue;
+                }
+                if (!queued.contains(job.getId())) {
+                    logger.info("Resuming account erasure for {} ({})", job.getId(), job.getString("status"));
+                }
+                submit(job.getId());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to resume account erasure jobs", e);
+        }
+    }
+
+    private void submit(String email) {
+        if (queued.add(email)) {
+            jobs.execute(() -> {
+                try {
+                    run(email);
+                } finally {
+                    queued.remove(email);
+                }
+            });
+        }
+    }
+
+    private void run(String email) {
+        String lease = LEASE_PREFIX + email;
+        if (!jobLease.tryAcquire(lease, LEASE_MILLIS)) {
+            logger.debug("Account erasure for {} is running on another instance", email);
+            return;
+        }
+        // Renewed in the background while the steps run; once lost, the job stops before its next step
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        ScheduledFuture<?> renewal = scheduler.scheduleWithFixedDelay(() -> {
+            if (!jobLease.tryAcquire(lease, LEASE_MILLIS)) {
+                leaseLost.set(true);
+            }
+        }, LEASE_RENEW_MILLIS, LEASE_RENEW_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            run(email, leaseLost);
+        } finally {
+            renewal.cancel(false);
+            jobLease.release(lease);
+        }
+    }
+
+    private void run(String email, AtomicBoolean leaseLost) {
+        DocumentReference jobRef = firestore.collection(JOBS).document(email);
+        long start = System.currentTimeMillis();
+        long deleted = 0;
+        long resumedFrom = 0;
+        long attempts = 0;
+        try {
+            DocumentSnapshot job = jobRef.get().get();
+            if (!job.exists() || "completed".equals(job.getString("status"))) {
+                return;
+            }
+            String userId = job.getString("userId");
+            List<?> completedSteps = (List<?>) job.get("completedSteps");
+            Long previousAttempts = job.getLong("attempts");
+            attempts = previousAttempts == null ? 0 : previousAttempts;
+            Long alreadyDeleted = job.getLong("documentsDeleted");
+            resumedFrom = alreadyDeleted == null ? 0 : alreadyDeleted;
+            deleted = resumedFrom;
+            jobRef.update("status", "running", "startedAt", Timestamp.now()).get();
+
+            for (String step : STEPS) {
+                if (completedSteps != null && completedSteps.contains(step)) {
+                    continue;
+                }
+                if (leaseLost.get()) {
+                    logger.warn("Account erasure for {} lost its lease before step {}; left for the owner", email, step);
+                    return;
+                }
+                long stepStart = System.currentTimeMillis();
+                long stepDeleted = runStep(step, email, userId);
+                deleted += stepDeleted;
+                jobRef.update(
+                        FieldPath.of("completedSteps"), FieldValue.arrayUnion(step),
+                        FieldPath.of("deletedByStep", step), stepDeleted,
+                        FieldPath.of("documentsDeleted"), deleted).get();
+                logger.info("Account erasure for {}: step {} removed {} documents in {} ms",
+                        email, step, stepDeleted, System.currentTimeMillis() - stepStart);
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            // Throughput of this run only; a resumed job's earlier work is in documentsDeleted
+            double perSecond = elapsed == 0 ? 0 : (deleted - resumedFrom) * 1000.0 / elapsed;
+            jobRef.update("status", "completed", "finishedAt", Timestamp.now(),
+                    "elapsedMillis", elapsed, "documentsPerSecond", perSecond,
+                    "error", FieldValue.delete(), "retryAt", FieldValue.delete()).get();
+            completedJobs.incrementAndGet();
+            logger.info("Account erasure for {} finished: {} documents in {} ms ({} docs/s)",
+                    email, deleted, elapsed, String.format("%.1f", perSecond));
+        } catch (Exception e) {
+            failedJobs.incrementAndGet();
+            long retryIn = retryDelayMillis(attempts);
+            logger.error("Account erasure for {} failed (attempt {}), retrying in {} s",
+                    email, attempts + 1, retryIn / 1000, e);
+            try {
+                jobRef.update("status", "failed", "error", String.valueOf(e.getMessage()), "attempts", attempts + 1,
+                        "retryAt", Timestamp.ofTimeMicroseconds((System.currentTimeMillis() + retryIn) * 1000)).get();
+            } catch (Exception updateError) {
+                logger.error("Failed to record erasure failure for {}", email, updateError);
+            }
+        }
+    }
+
+    // base, 2x base, 4x base, ... capped at the maximum
+    private long retryDelayMillis(long attempts) {
+        long delay = retryBaseMillis;
+        for (long i = 0; i < attempts && delay < retryMaxMillis; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, retryMaxMillis);
+    }
+
+    private long runStep(String step, String email, String userId) throws Exception {
+        switch (step) {
+            case STEP_USER:
+                userRepository.deleteUser(email);
+                return 1;
+            case STEP_POSTS:
+                return deleteEach(firestore.collection("posts").whereEqualTo("authorEmail", email),
+                        postService::deletePost);
+            case STEP_COMMENTS:
+                return bulkDeleter.deleteMatching("comments by " + email,
+                        firestore.collectionGroup("comments").whereEqualTo("commentEmail", email));
+            case STEP_LIKES:
+                return unlikeEach(email);
+            case STEP_FOLLOWS:
+                return followRepository.removeAllFollowRequests(email);
+            case STEP_CHATS:
+                return deleteEach(firestore.collection("chats").whereArrayContains("users", email),
+                        chatService::deleteChat);
+            case STEP_LEARNING_PLANS:
+                if (userId == null) {
+                    return 0;
+                }
+                long plans = bulkDeleter.deleteMatching("learning plans of " + email,
+                        firestore.collection("learningPlans").whereEqualTo("userId", userId));
+                learningPlanAnalyticsService.markDirty(userId);
+                return plans;
+            case STEP_TIMELINE:
+                return bulkDeleter.deleteDocument(firestore.collection("timelines").document(email), "entries");
+            case STEP_SUGGESTIONS:
+                firestore.collection("suggestions").document(email).delete().get();
+                return 1;
+            default:
+                throw new IllegalStateException("Unknown erasure step " + step);
+        }
+    }
+
+    // Delete each matching document (with its subcollections) on the worker pool, a page at a
+    // time. Deleted documents drop out of the query, so every page is read from the start.
+    private long deleteEach(Query query, DocumentDeleter deleter) throws ExecutionException, InterruptedException {
+        long deleted = 0;
+        while (true) {
+            List<QueryDocumentSnapshot> page = query.select(FieldPath.documentId()).limit(PAGE_SIZE)
+                    .get().get().getDocuments();
+            if (page.isEmpty()) {
+                return deleted;
+            }
+            List<Future<Long>> results = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : page) {
+                results.add(workers.submit(() -> deleter.delete(doc.getId())));
+            }
+            for (Future<Long> result : results) {
+                deleted += result.get();
+            }
+        }
+    }
+
+    // Take back each of the user's likes through the normal unlike path, so the post's "likes"
+    // field, its like shards and the tag index are decremented along with the liker document.
+    // A liker left under a post that no longer exists is simply deleted.
+    private long unlikeEach(String email) throws ExecutionException, InterruptedException {
+        Query likers = firestore.collectionGroup("likers").whereEqualTo("email", email);
+        long removed = 0;
+        while (true) {
+            List<QueryDocumentSnapshot> page = likers.select(FieldPath.documentId()).limit(PAGE_SIZE)
+                    .get().get().getDocuments();
+            if (page.isEmpty()) {
+                return removed;
+            }
+            List<Future<?>> results = new ArrayList<>();
+            for (QueryDocumentSnapshot liker : page) {
+                String postId = liker.getReference().getParent().getParent().getId();
+                results.add(workers.submit(() -> {
+                    try {
+                        postService.unlikePost(postId, email);
+                    } catch (ExecutionException e) {
+                        if (!(e.getCause() instanceof IllegalArgumentException)) {
+                            throw e;
+                        }
+                        liker.getReference().delete().get(); // post not found
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            removed += page.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        jobs.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private interface DocumentDeleter {
+        long delete(String documentId) throws Exception;
+    }
+}
@@ -0,0 +1,174 @@
+package com.designhive.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Deletes large sets of documents with batched writes. Documents are read a page at a time
+// (ids only) and deleted in WriteBatches of up to 500, with a bounded number of batches in
+// flight. A parent document is deleted only after its subcollections are empty, so a delete
+// interrupted by a crash leaves the parent in place and can simply be run again.
+@Component
+public class BulkDeleter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkDeleter.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int LOG_EVERY_PAGES = 10;
+
+    private final Firestore firestore;
+    private final int maxInFlight;
+
+    private final Map<Long, Progress> running = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong documentsDeleted = new AtomicLong();
+
+    @Autowired
+    public BulkDeleter(Firestore firestore, @Value("${bulk-delete.max-in-flight:4}") int maxInFlight) {
+        this.firestore = firestore;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // ✅ Delete a document and everything in the given subcollections. Returns documents deleted.
+    public long deleteDocument(DocumentReference document, String... subcollections)
+            throws ExecutionException, InterruptedException {
+        Progress progress = start(document.getPath());
+        try {
+            for (String subcollection : subcollections) {
+                deletePages(document.collection(subcollection), progress);
+            }
+            document.delete().get();
+            progress.deleted.incrementAndGet();
+            return finish(progress);
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            fail(progress, e);
+            throw e;
+        }
+    }
+
+    // ✅ Delete every document matching the query (e.g. all of one user's rows). Returns documents deleted.
+    public long deleteMatching(String label, Query query) throws ExecutionException, InterruptedException {
+        Progress progress = start(label);
+        try {
+            deletePages(query, progress);
+            return finish(progress);
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            fail(progress, e);
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> active = new ArrayList<>();
+        for (Progress progress : running.values()) {
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put("target", progress.target);
+            job.put("deleted", progress.deleted.get());
+            job.put("elapsedMillis", System.currentTimeMillis() - progress.startedAt);
+            active.add(job);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", active);
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("documentsDeleted", documentsDeleted.get());
+        stats.put("maxInFlight", maxInFlight);
+        return stats;
+    }
+
+    // Page through the query by document id, deleting each page in one batch. Up to
+    // maxInFlight batches are committing while the next page is read.
+    private void deletePages(Query query, Progress progress) throws ExecutionException, InterruptedException {
+        Query base = query.orderBy(FieldPath.documentId()).select(FieldPath.documentId()).limit(BATCH_SIZE);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<ApiFuture<List<WriteResult>>> commits = new ArrayList<>();
+        DocumentSnapshot last = null;
+        int pages = 0;
+
+        while (error.get() == null) {
+            List<QueryDocumentSnapshot> page = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            if (page.isEmpty()) {
+                break;
+            }
+            WriteBatch batch = firestore.batch();
+            page.forEach(doc -> batch.delete(doc.getReference()));
+
+            inFlight.acquire();
+            ApiFuture<List<WriteResult>> commit = batch.commit();
+            int size = page.size();
+            commit.addListener(() -> {
+                try {
+                    commit.get();
+                    progress.deleted.addAndGet(size);
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            }, MoreExecutors.directExecutor());
+            commits.add(commit);
+
+            if (++pages % LOG_EVERY_PAGES == 0) {
+                logger.info("Bulk delete of {}: {} documents deleted so far", progress.target, progress.deleted.get());
+            }
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            last = page.get(page.size() - 1);
+        }
+
+        // Surface the first failure after every commit has settled
+        for (ApiFuture<List<WriteResult>> commit : commits) {
+            commit.get();
+        }
+    }
+
+    private Progress start(String target) {
+        Progress progress = new Progress(target);
+        running.put(progress.id, progress);
+        return progress;
+    }
+
+    private long finish(Progress progress) {
+        running.remove(progress.id);
+        long deleted = progress.deleted.get();
+        completed.incrementAndGet();
+        documentsDeleted.addAndGet(deleted);
+        logger.info("Bulk delete of {} finished: {} documents in {} ms",
+                progress.target, deleted, System.currentTimeMillis() - progress.startedAt);
+        return deleted;
+    }
+
+    private void fail(Progress progress, Exception e) {
+        running.remove(progress.id);
+        failed.incrementAndGet();
+        documentsDeleted.addAndGet(progress.deleted.get());
+        logger.error("Bulk delete of {} failed after {} documents", progress.target, progress.deleted.get(), e);
+    }
+
+    private class Progress {
+        private final long id = nextId.incrementAndGet();
+        private final String target;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong deleted = new AtomicLong();
+
+        private Progress(String target) {
+            this.target = target;
+        }
+    }
+}
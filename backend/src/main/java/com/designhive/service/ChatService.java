@@ -2,10 +2,19 @@ package com.designhive.service;
 
 import com.designhive.entity.MessageRequest;
 import com.designhive.entity.StartChatRequest;
+import com.designhive.repository.UserRepository;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
 import com.google.firebase.cloud.FirestoreClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 import java.util.concurrent.ExecutionException;
@@ -13,79 +22,353 @@ import java.util.concurrent.ExecutionException;
 @Service
 public class ChatService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+    private static final int MAX_MESSAGE_PAGE_SIZE = 100;
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+    private static final int BACKFILL_PAGE_SIZE = 500;
+    private static final long CHAT_INDEX_VERSION = 2;
+    private static final int PREVIEW_LENGTH = 200;
+    private static final int MAX_UNREAD_SCAN = 200;
+
     private final Firestore db = FirestoreClient.getFirestore();
 
-    // 🔸 1. Start Chat
-    public String startChat(StartChatRequest request) {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatStreamHub chatStreamHub;
+
+    @Autowired
+    private UserProfileResolver userProfileResolver;
+
+    @Autowired
+    private BulkDeleter bulkDeleter;
+
+    // 🔸 1. Start Chat. Starting a chat that already exists keeps its messages and counters.
+    public String startChat(StartChatRequest request) throws ExecutionException, InterruptedException {
         List<String> users = Arrays.asList(request.getUser1(), request.getUser2());
         Collections.sort(users); // to ensure consistent chatId
         String chatId = users.get(0) + "_" + users.get(1);
 
+        Map<String, Object> unread = new HashMap<>();
+        users.forEach(user -> unread.put(user, 0));
+
         Map<String, Object> chatData = new HashMap<>();
         chatData.put("users", users);
+        chatData.put("lastMessageAt", FieldValue.serverTimestamp());
+        chatData.put("unread", unread);
 
-        db.collection("chats").document(chatId).set(chatData);
+        DocumentReference chatRef = db.collection("chats").document(chatId);
+        db.runTransaction(transaction -> {
+            if (!transaction.get(chatRef).get().exists()) {
+                transaction.set(chatRef, chatData);
+            }
+            return null;
+        }).get();
         return chatId;
     }
 
-    // 🔸 2. Send Message
+    // 🔸 2. Send Message. The chat document carries a summary of the last message and an
+    // unread counter per participant, so inbox queries never have to look at messages.
     public String sendMessage(String chatId, MessageRequest message) throws ExecutionException, InterruptedException {
-        CollectionReference messagesRef = db.collection("chats").document(chatId).collection("messages");
+        DocumentReference chatRef = db.collection("chats").document(chatId);
+        DocumentReference messageRef = chatRef.collection("messages").document();
 
         Map<String, Object> messageData = new HashMap<>();
         messageData.put("sender", message.getSender());
         messageData.put("text", message.getText());
         messageData.put("timestamp", FieldValue.serverTimestamp());
 
-        ApiFuture<DocumentReference> result = messagesRef.add(messageData);
-        return result.get().getId();
+        DocumentSnapshot chat = chatRef.get().get();
+        List<String> participants = chat.get("users") instanceof List<?>
+                ? getParticipants(chatId, chat) : participantsFromId(chatId, message.getSender());
+        if (participants == null || !participants.contains(message.getSender())) {
+            throw new IllegalArgumentException("Sender is not a participant of this chat");
+        }
+        Map<String, Object> unread = new HashMap<>();
+        for (String participant : participants) {
+            if (!participant.equals(message.getSender())) {
+                unread.put(participant, FieldValue.increment(1));
+            }
+        }
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("users", participants);
+        summary.put("lastMessageAt", FieldValue.serverTimestamp());
+        summary.put("lastMessageId", messageRef.getId());
+        summary.put("lastMessage", preview(message.getText()));
+        summary.put("lastSender", message.getSender());
+        summary.put("unread", unread);
+
+        WriteBatch batch = db.batch();
+        batch.set(messageRef, messageData);
+        batch.set(chatRef, summary, SetOptions.merge());
+        batch.commit().get();
+        String messageId = messageRef.getId();
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("messageId", messageId);
+        event.put("sender", message.getSender());
+        event.put("text", message.getText());
+        event.put("timestamp", Timestamp.now());
+        chatStreamHub.publish(chatId, "added", event);
+        return messageId;
     }
 
-    // 🔸 3. Get All Messages
-    public List<Map<String, Object>> getMessages(String chatId) throws ExecutionException, InterruptedException {
-        CollectionReference messagesRef = db.collection("chats").document(chatId).collection("messages");
-        ApiFuture<QuerySnapshot> future = messagesRef.orderBy("timestamp").get();
+    // ✅ Clear the reader's unread counter
+    public void markRead(String chatId, String email) throws ExecutionException, InterruptedException {
+        db.collection("chats").document(chatId)
+                .update(FieldPath.of("unread", email), 0)
+                .get();
+    }
+
+    // 🔸 3. Get Messages, one page at a time. Without cursors this is the most recent page;
+    // "before" pages back through older history and "after" fetches anything newer.
+    // Messages in a page are oldest first. hasOlder/hasNewer tell whether there are messages
+    // beyond the page on either side; olderCursor is set only when there are older ones, and
+    // newerCursor is set whenever the page has a position, so a client can keep polling "after".
+    public Map<String, Object> getMessages(String chatId, String before, String after, int limit)
+            throws ExecutionException, InterruptedException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE_SIZE));
+        Query query = db.collection("chats").document(chatId).collection("messages")
+                .orderBy("timestamp")
+                .orderBy(FieldPath.documentId());
+
+        // One extra document tells whether there is more beyond this page in the paging
+        // direction; the other direction takes one single-document lookup
+        List<QueryDocumentSnapshot> documents;
+        boolean hasOlder;
+        boolean hasNewer;
+        if (after != null && !after.isBlank()) {
+            Object[] cursor = PageCursor.decode(after);
+            documents = query.startAfter(cursor).limit(pageSize + 1).get().get().getDocuments();
+            hasNewer = documents.size() > pageSize;
+            if (hasNewer) {
+                documents = documents.subList(0, pageSize);
+            }
+            Query older = documents.isEmpty() ? query.endAt(cursor) : query.endBefore(documents.get(0));
+            hasOlder = !older.limitToLast(1).get().get().isEmpty();
+        } else {
+            if (before != null && !before.isBlank()) {
+                Object[] cursor = PageCursor.decode(before);
+                query = query.endBefore(cursor);
+                hasNewer = !db.collection("chats").document(chatId).collection("messages")
+                        .orderBy("timestamp").orderBy(FieldPath.documentId())
+                        .startAt(cursor).limit(1).get().get().isEmpty();
+            } else {
+                hasNewer = false;
+            }
+            documents = query.limitToLast(pageSize + 1).get().get().getDocuments();
+            hasOlder = documents.size() > pageSize;
+            if (hasOlder) {
+                documents = documents.subList(1, documents.size());
+            }
+        }
 
         List<Map<String, Object>> messages = new ArrayList<>();
-        for (DocumentSnapshot doc : future.get().getDocuments()) {
+        for (DocumentSnapshot doc : documents) {
             Map<String, Object> data = doc.getData();
             data.put("messageId", doc.getId());
             messages.add(data);
         }
 
-        return messages;
+        Map<String, Object> page = new HashMap<>();
+        page.put("messages", messages);
+        page.put("hasOlder", hasOlder);
+        page.put("hasNewer", hasNewer);
+        if (documents.isEmpty()) {
+            page.put("olderCursor", hasOlder ? (after != null && !after.isBlank() ? after : before) : null);
+            page.put("newerCursor", after != null && !after.isBlank() ? after : before);
+        } else {
+            page.put("olderCursor", hasOlder ? PageCursor.encode(documents.get(0), "timestamp") : null);
+            page.put("newerCursor", PageCursor.encode(documents.get(documents.size() - 1), "timestamp"));
+        }
+        return page;
     }
 
+    // Editing or deleting the last message also updates the chat summary
     public void updateMessage(String chatId, String messageId, String newText)
             throws ExecutionException, InterruptedException {
-        db.collection("chats")
-                .document(chatId)
-                .collection("messages")
-                .document(messageId)
-                .update("text", newText)
-                .get();
+        DocumentReference chatRef = db.collection("chats").document(chatId);
+        DocumentReference messageRef = chatRef.collection("messages").document(messageId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot chat = transaction.get(chatRef).get();
+            transaction.update(messageRef, "text", newText);
+            if (messageId.equals(chat.getString("lastMessageId"))) {
+                transaction.update(chatRef, "lastMessage", preview(newText));
+            }
+            return null;
+        }).get();
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("messageId", messageId);
+        event.put("text", newText);
+        chatStreamHub.publish(chatId, "modified", event);
     }
 
+    // Deleting a message some participants have not read yet also takes it off their unread
+    // counters. A participant with n unread has not read the n newest messages from others;
+    // that is checked against the newest messages (up to MAX_UNREAD_SCAN), so a message further
+    // back than that is left counted.
     public void deleteMessage(String chatId, String messageId) throws ExecutionException, InterruptedException {
-        db.collection("chats")
-                .document(chatId)
-                .collection("messages")
-                .document(messageId)
-                .delete()
-                .get();
+        DocumentReference chatRef = db.collection("chats").document(chatId);
+        DocumentReference messageRef = chatRef.collection("messages").document(messageId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot chat = transaction.get(chatRef).get();
+            long maxUnread = 0;
+            Object unread = chat.get("unread");
+            if (unread instanceof Map<?, ?>) {
+                for (Object count : ((Map<?, ?>) unread).values()) {
+                    if (count instanceof Number) {
+                        maxUnread = Math.max(maxUnread, ((Number) count).longValue());
+                    }
+                }
+            }
+            // The deleted message plus the newest one before it, and enough to cover every unread count
+            int scan = (int) Math.min(maxUnread, MAX_UNREAD_SCAN) + 2;
+            List<QueryDocumentSnapshot> latest = transaction.get(chatRef.collection("messages")
+                    .orderBy("timestamp", Query.Direction.DESCENDING).limit(scan)).get().getDocuments();
+
+            // By FieldPath, since the emails keying "unread" contain dots
+            Map<FieldPath, Object> updates = new LinkedHashMap<>();
+            if (chat.exists() && unread instanceof Map<?, ?>) {
+                ((Map<?, ?>) unread).forEach((email, count) -> {
+                    if (count instanceof Number && isUnread(latest, messageId, String.valueOf(email),
+                            ((Number) count).longValue())) {
+                        updates.put(FieldPath.of("unread", String.valueOf(email)), FieldValue.increment(-1));
+                    }
+                });
+            }
+            if (chat.exists() && messageId.equals(chat.getString("lastMessageId"))) {
+                DocumentSnapshot previous = null;
+                for (DocumentSnapshot doc : latest) {
+                    if (!doc.getId().equals(messageId)) {
+                        previous = doc;
+                        break;
+                    }
+                }
+                updates.put(FieldPath.of("lastMessageId"), previous == null ? null : previous.getId());
+                updates.put(FieldPath.of("lastMessage"), previous == null ? null : preview(previous.getString("text")));
+                updates.put(FieldPath.of("lastSender"), previous == null ? null : previous.getString("sender"));
+                // Without messages the chat sorts last, as the backfill does for empty chats
+                updates.put(FieldPath.of("lastMessageAt"), previous == null
+                        ? Timestamp.ofTimeSecondsAndNanos(0, 0) : previous.getTimestamp("timestamp"));
+            }
+            if (!updates.isEmpty()) {
+                List<Object> rest = new ArrayList<>();
+                updates.entrySet().stream().skip(1).forEach(entry -> {
+                    rest.add(entry.getKey());
+                    rest.add(entry.getValue());
+                });
+                Map.Entry<FieldPath, Object> first = updates.entrySet().iterator().next();
+                transaction.update(chatRef, first.getKey(), first.getValue(), rest.toArray());
+            }
+            transaction.delete(messageRef);
+            return null;
+        }).get();
+        chatStreamHub.publish(chatId, "removed", Map.of("messageId", messageId));
     }
 
+    // Whether the message is among the reader's unreadCount newest messages from others
+    private static boolean isUnread(List<QueryDocumentSnapshot> newestFirst, String messageId, String reader,
+                                    long unreadCount) {
+        long remaining = unreadCount;
+        for (DocumentSnapshot doc : newestFirst) {
+            if (remaining <= 0) {
+                return false;
+            }
+            if (reader.equals(doc.getString("sender"))) {
+                continue;
+            }
+            if (doc.getId().equals(messageId)) {
+                return true;
+            }
+            remaining--;
+        }
+        return false;
+    }
 
-    public List<String> getUserChats(String userEmail) throws ExecutionException, InterruptedException {
-        List<String> chatIds = new ArrayList<>();
-        ApiFuture<QuerySnapshot> future = db.collection("chats").get();
-        for (DocumentSnapshot doc : future.get().getDocuments()) {
-            String id = doc.getId();
-            if (id.contains(userEmail)) {
-                chatIds.add(id);
+    // ✅ The user's chats, most recently active first, with their unread count
+    public List<Map<String, Object>> getUserChats(String userEmail, int limit) throws ExecutionException, InterruptedException {
+        List<Map<String, Object>> chats = new ArrayList<>();
+        for (DocumentSnapshot doc : queryUserChats(userEmail, limit)) {
+            Map<String, Object> chat = new HashMap<>();
+            chat.put("chatId", doc.getId());
+            chat.put("users", doc.get("users"));
+            chat.put("lastMessageAt", doc.getTimestamp("lastMessageAt"));
+            chat.put("unreadCount", getUnreadCount(doc, userEmail));
+            chats.add(chat);
+        }
+        return chats;
+    }
+
+    // ✅ Everything needed to render the user's inbox in one call: the chats (one query) with
+    // last message, unread count and the other participant's profile (one batched lookup)
+    public List<Map<String, Object>> getInbox(String userEmail, int limit) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = queryUserChats(userEmail, limit);
+
+        Map<String, String> otherByChat = new HashMap<>();
+        for (DocumentSnapshot doc : documents) {
+            for (String participant : getParticipants(doc.getId(), doc)) {
+                if (!participant.equals(userEmail)) {
+                    otherByChat.put(doc.getId(), participant);
+                }
             }
         }
-        return chatIds;
+        Map<String, DocumentSnapshot> profiles = userProfileResolver.resolveByEmails(otherByChat.values());
+
+        List<Map<String, Object>> inbox = new ArrayList<>();
+        for (DocumentSnapshot doc : documents) {
+            String otherEmail = otherByChat.getOrDefault(doc.getId(), userEmail);
+            Map<String, Object> chat = new HashMap<>();
+            chat.put("chatId", doc.getId());
+            chat.put("users", getParticipants(doc.getId(), doc));
+            chat.put("otherUser", toOtherUser(otherEmail, profiles.get(otherEmail)));
+            chat.put("lastMessage", doc.getString("lastMessage"));
+            chat.put("lastSender", doc.getString("lastSender"));
+            chat.put("lastMessageAt", doc.getTimestamp("lastMessageAt"));
+            chat.put("unreadCount", getUnreadCount(doc, userEmail));
+            inbox.add(chat);
+        }
+        return inbox;
+    }
+
+    // ✅ Participants of one chat, and the one who is not the viewer, for the open chat's header
+    public Map<String, Object> getChatParticipants(String chatId, String viewerEmail)
+            throws ExecutionException, InterruptedException {
+        DocumentSnapshot doc = db.collection("chats").document(chatId).get().get();
+        List<String> participants = doc.get("users") instanceof List<?>
+                ? getParticipants(chatId, doc) : participantsFromId(chatId, viewerEmail);
+        if (participants == null || !participants.contains(viewerEmail)) {
+            throw new IllegalArgumentException("Not a participant of this chat");
+        }
+        String otherEmail = participants.stream().filter(user -> !user.equals(viewerEmail)).findFirst().orElse(viewerEmail);
+        DocumentSnapshot profile = userProfileResolver.resolveByEmails(List.of(otherEmail)).get(otherEmail);
+
+        Map<String, Object> chat = new HashMap<>();
+        chat.put("chatId", chatId);
+        chat.put("users", participants);
+        chat.put("otherUser", toOtherUser(otherEmail, profile));
+        return chat;
+    }
+
+    private Map<String, Object> toOtherUser(String email, DocumentSnapshot profile) {
+        Map<String, Object> otherUser = new HashMap<>();
+        otherUser.put("email", email);
+        otherUser.put("username", profile != null && profile.getString("username") != null
+                ? profile.getString("username") : email);
+        otherUser.put("avatar", profile != null ? profile.getString("profileImagePath") : null);
+        return otherUser;
+    }
+
+    // Needs the composite index (users array-contains, lastMessageAt desc) in firestore.indexes.json
+    private List<QueryDocumentSnapshot> queryUserChats(String userEmail, int limit)
+            throws ExecutionException, InterruptedException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_INBOX_PAGE_SIZE));
+        return db.collection("chats")
+                .whereArrayContains("users", userEmail)
+                .orderBy("lastMessageAt", Query.Direction.DESCENDING)
+                .limit(pageSize)
+                .get().get().getDocuments();
     }
 
     public List<Map<String, Object>> getChatsStartedByUser(String email) throws ExecutionException, InterruptedException {
@@ -107,27 +390,144 @@ public class ChatService {
     }
     
     public String getDisplayNameByEmail(String email) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = db.collection("users").whereEqualTo("email", email).get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        if (!documents.isEmpty()) {
-            Map<String, Object> userData = documents.get(0).getData();
-            return (String) userData.getOrDefault("username", email); // fallback to email
+        DocumentSnapshot userDoc = userRepository.getUserDocumentByEmail(email);
+        if (userDoc != null) {
+            String username = userDoc.getString("username");
+            return username != null ? username : email; // fallback to email
         }
         return email;
     }
 
-    public void deleteChat(String chatId) throws ExecutionException, InterruptedException {
-        // Delete messages
-        CollectionReference messagesRef = db.collection("chats").document(chatId).collection("messages");
-        ApiFuture<QuerySnapshot> messages = messagesRef.get();
-        for (DocumentSnapshot doc : messages.get().getDocuments()) {
-            messagesRef.document(doc.getId()).delete();
+    // ✅ Delete the chat and all its messages; returns the number of documents removed
+    public long deleteChat(String chatId) throws ExecutionException, InterruptedException {
+        long deleted = bulkDeleter.deleteDocument(db.collection("chats").document(chatId), "messages");
+        // Anyone with the chat open is told it is gone rather than left watching a dead stream
+        chatStreamHub.publish(chatId, "chatDeleted", Map.of("chatId", chatId));
+        return deleted;
+    }
+
+    // Chats written before the summary fields were maintained are missing from the membership
+    // query and the inbox. Fill them in once; meta/chatIndex records the version done.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChatIndex() {
+        DocumentReference marker = db.collection("meta").document("chatIndex");
+        try {
+            Long version = marker.get().get().getLong("version");
+            if (version != null && version >= CHAT_INDEX_VERSION) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            int updated = 0;
+            Query base = db.collection("chats").orderBy(FieldPath.documentId()).limit(BACKFILL_PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> chats = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                WriteBatch batch = db.batch();
+                int writes = 0;
+                for (QueryDocumentSnapshot chat : chats) {
+                    if (chat.contains("users") && chat.contains("lastMessageAt") && chat.contains("lastMessageId")) {
+                        continue;
+                    }
+                    List<QueryDocumentSnapshot> latest = chat.getReference().collection("messages")
+                            .orderBy("timestamp").limitToLast(1).get().get().getDocuments();
+
+                    List<String> users = chat.get("users") instanceof List<?> ? getParticipants(chat.getId(), chat)
+                            : participantsFromId(chat.getId(), latest.isEmpty() ? null : latest.get(0).getString("sender"));
+                    if (users == null) {
+                        logger.warn("Chat {} has no participant list and none can be derived; left as is", chat.getId());
+                        continue;
+                    }
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("users", users);
+                    if (!latest.isEmpty()) {
+                        QueryDocumentSnapshot message = latest.get(0);
+                        summary.put("lastMessageAt", message.getTimestamp("timestamp"));
+                        summary.put("lastMessageId", message.getId());
+                        summary.put("lastMessage", preview(message.getString("text")));
+                        summary.put("lastSender", message.getString("sender"));
+                    } else if (!chat.contains("lastMessageAt")) {
+                        summary.put("lastMessageAt", Timestamp.ofTimeSecondsAndNanos(0, 0));
+                    }
+                    batch.set(chat.getReference(), summary, SetOptions.merge());
+                    writes++;
+                }
+                if (writes > 0) {
+                    batch.commit().get();
+                    updated += writes;
+                }
+                if (chats.size() < BACKFILL_PAGE_SIZE) {
+                    break;
+                }
+                last = chats.get(chats.size() - 1);
+            }
+
+            marker.set(Map.of("version", CHAT_INDEX_VERSION, "backfilledAt", FieldValue.serverTimestamp())).get();
+            logger.info("Chat index backfill: {} chats updated in {} ms", updated, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Chat index backfill failed", e);
         }
-    
-        // Delete the chat document
-        db.collection("chats").document(chatId).delete();
     }
-    
-    
+
+    // Participants from the chat document's "users"
+    private List<String> getParticipants(String chatId, DocumentSnapshot chat) {
+        Object users = chat.exists() ? chat.get("users") : null;
+        if (!(users instanceof List<?>)) {
+            throw new IllegalStateException("Chat " + chatId + " has no participant list");
+        }
+        List<String> participants = new ArrayList<>();
+        for (Object user : (List<?>) users) {
+            participants.add(String.valueOf(user));
+        }
+        return participants;
+    }
+
+    // Participants of a chat written without "users", given one of them. The id joins the two
+    // sorted emails with "_", which emails may contain too, so it only splits unambiguously
+    // around a known participant. Null if the email is not part of the id.
+    static List<String> participantsFromId(String chatId, String knownEmail) {
+        if (knownEmail == null) {
+            return null;
+        }
+        List<String> participants = new ArrayList<>();
+        if (chatId.startsWith(knownEmail + "_")) {
+            participants.add(knownEmail);
+            participants.add(chatId.substring(knownEmail.length() + 1));
+        } else if (chatId.endsWith("_" + knownEmail)) {
+            participants.add(chatId.substring(0, chatId.length() - knownEmail.length() - 1));
+            participants.add(knownEmail);
+        } else {
+            return null;
+        }
+        Collections.sort(participants);
+        // Both orders must rebuild the id, or the split was a guess
+        return chatId.equals(participants.get(0) + "_" + participants.get(1)) ? participants : null;
+    }
+
+    private String preview(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_LENGTH);
+    }
+
+    private long getUnreadCount(DocumentSnapshot chat, String email) {
+        Object unread = chat.get("unread");
+        if (unread instanceof Map<?, ?>) {
+            Object count = ((Map<?, ?>) unread).get(email);
+            if (count instanceof Number) {
+                return ((Number) count).longValue();
+            }
+        }
+        return 0;
+    }
+
+    public SseEmitter streamMessages(String chatId) {
+        return chatStreamHub.subscribe(chatId);
+    }
+
+    public Map<String, Object> getStreamStats() {
+        return chatStreamHub.getStats();
+    }
 
 }
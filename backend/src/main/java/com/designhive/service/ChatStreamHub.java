@@ -0,0 +1,146 @@
+package com.designhive.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pushes chat message changes to connected clients over server-sent events.
+// ChatService publishes every send/edit/delete, and the chat itself being deleted, once per
+// chat; the chat's channel fans it out to all subscribers. Each subscriber has a small
+// bounded buffer drained on a shared pool, so a slow client never blocks the sender or other
+// clients - when its buffer overflows it is disconnected and is expected to reconnect and
+// re-read the history.
+@Component
+public class ChatStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatStreamHub.class);
+
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000;
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final int SUBSCRIBER_BUFFER = 100;
+
+    private final Map<String, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newFixedThreadPool(4, runnable -> daemon(runnable, "chat-stream"));
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "chat-stream-heartbeat"));
+
+    public ChatStreamHub() {
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // ✅ Open a stream for one client on a chat
+    public SseEmitter subscribe(String chatId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(chatId, emitter);
+        channels.computeIfAbsent(chatId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    // ✅ Fan a message change out to everyone watching the chat
+    public void publish(String chatId, String type, Map<String, Object> message) {
+        Set<Subscriber> subscribers = channels.get(chatId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>(message);
+        event.put("type", type);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().name("message").data(event));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int subscribers = 0;
+        for (Set<Subscriber> channel : channels.values()) {
+            subscribers += channel.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chats", channels.size());
+        stats.put("subscribers", subscribers);
+        return stats;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        channels.computeIfPresent(subscriber.chatId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : channels.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        for (Set<Subscriber> subscribers : channels.values()) {
+            subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+        channels.clear();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private class Subscriber {
+        private final String chatId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(SUBSCRIBER_BUFFER);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String chatId, SseEmitter emitter) {
+            this.chatId = chatId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (!buffer.offer(event)) {
+                logger.warn("Dropping slow chat stream subscriber on {}", chatId);
+                unsubscribe(this);
+                emitter.completeWithError(new IllegalStateException("Subscriber too slow"));
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have arrived between the last poll and releasing the flag
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.designhive.service;
+
+import com.designhive.repository.FollowGraph;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+
+// "People you may know". A batch job takes one snapshot of the follow graph plus every user's
+// preferences and skills, then scores friends-of-friends for each user in parallel on a
+// fork/join pool: mutual connections first, shared preferences/skills as a tie-breaker.
+// The top suggestions are stored in suggestions/{email}. After the first full run only users
+// near a changed follow edge, or whose preferences/skills changed, are recomputed (with their
+// interests reloaded); a full run is repeated periodically. Every instance records the users
+// it saw change in suggestionsDirty/{email}; the job itself runs on the one instance holding
+// the JobLease and expands those users to their neighbourhood in its own follow graph.
+@Service
+public class FollowSuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowSuggestionService.class);
+
+    private static final String COLLECTION_NAME = "suggestions";
+    private static final String DIRTY_COLLECTION = "suggestionsDirty";
+    private static final String LEASE = "followSuggestions";
+    private static final int GET_ALL_LIMIT = 100;
+    private static final int TOP_N = 20;
+    private static final int MAX_RESPONSE_SIZE = 20;
+    private static final int LEAF_SIZE = 64;
+    private static final int PAGE_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+    // Users with more connections than this are not expanded as the middle hop (celebrities)
+    private static final int MAX_HOP_DEGREE = 5000;
+    private static final double MUTUAL_WEIGHT = 1.0;
+    private static final double SHARED_PREFERENCE_WEIGHT = 0.5;
+    private static final double SHARED_SKILL_WEIGHT = 0.5;
+
+    private final Firestore firestore;
+    private final FollowGraph followGraph;
+    private final UserProfileResolver userProfileResolver;
+    private final JobLease jobLease;
+    private final ForkJoinPool pool;
+    private final long fullRefreshMillis;
+    private final long leaseMillis;
+
+    // Users seen changing on this instance, not yet recorded in suggestionsDirty
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "follow-suggestions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Interned preferences/skills by email, reloaded on each full run and for the users an
+    // incremental run recomputes. Only the scheduler thread touches these.
+    private Map<String, int[][]> interestsByEmail = new HashMap<>();
+    private Map<String, Integer> interestTokens = new HashMap<>();
+    private volatile long lastFullRunAt;
+    private volatile long lastRunMillis = -1;
+    private volatile int lastRunUsers;
+
+    @Autowired
+    public FollowSuggestionService(Firestore firestore, FollowGraph followGraph, UserProfileResolver userProfileResolver,
+                                   JobLease jobLease,
+                                   @Value("${suggestions.parallelism:4}") int parallelism,
+                                   @Value("${suggestions.refresh-minutes:5}") long refreshMinutes,
+                                   @Value("${suggestions.full-refresh-hours:24}") long fullRefreshHours) {
+        this.firestore = firestore;
+        this.followGraph = followGraph;
+        this.userProfileResolver = userProfileResolver;
+        this.jobLease = jobLease;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.fullRefreshMillis = TimeUnit.HOURS.toMillis(fullRefreshHours);
+        this.leaseMillis = TimeUnit.MINUTES.toMillis(Math.max(1, refreshMinutes) * 3);
+        followGraph.addListener(this::edgeChanged);
+        scheduler.scheduleWithFixedDelay(this::refresh, 1, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    // ✅ Stored suggestions for the user, minus anyone they have followed or requested since
+    public List<Map<String, Object>> getSuggestions(String email, int limit) throws ExecutionException, InterruptedException {
+        int size = Math.max(1, Math.min(limit, MAX_RESPONSE_SIZE));
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        if (email == null || email.isBlank() || email.contains("/")) {
+            return suggestions;
+        }
+        DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(email).get().get();
+        Object stored = doc.exists() ? doc.get("suggestions") : null;
+        if (!(stored instanceof List<?>)) {
+            return suggestions;
+        }
+
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        for (Object item : (List<?>) stored) {
+            if (item instanceof Map<?, ?>) {
+                Map<String, Object> candidate = new HashMap<>();
+                ((Map<?, ?>) item).forEach((key, value) -> candidate.put(String.valueOf(key), value));
+                String candidateEmail = (String) candidate.get("email");
+                if (candidateEmail != null && followGraph.getStatus(email, candidateEmail) == null) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+
+        Set<String> emails = new HashSet<>();
+        candidates.forEach(candidate -> emails.add((String) candidate.get("email")));
+        Map<String, DocumentSnapshot> profiles = userProfileResolver.resolveByEmails(emails);
+        for (Map<String, Object> candidate : candidates) {
+            DocumentSnapshot profile = profiles.get((String) candidate.get("email"));
+            if (profile == null) {
+                continue; // account no longer exists
+            }
+            candidate.put("username", profile.getString("username"));
+            candidate.put("avatar", profile.getString("profileImagePath"));
+            suggestions.add(candidate);
+            if (suggestions.size() == size) {
+                break;
+            }
+        }
+        return suggestions;
+    }
+
+    // ✅ Have the next run recompute the user, with their interests reloaded (e.g. after a
+    // profile edit changed their preferences or skills)
+    public void markDirty(String email) {
+        if (email != null && !email.isBlank() && !email.contains("/")) {
+            dirty.add(email);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dirtyUsers", dirty.size());
+        stats.put("lastFullRunAt", lastFullRunAt);
+        stats.put("lastRunUsers", lastRunUsers);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("parallelism", pool.getParallelism());
+        return stats;
+    }
+
+    // A new or removed edge changes the two-hop neighbourhood of both ends; the neighbours are
+    // added when the job picks the ends up
+    private void edgeChanged(String senderEmail, String receiverEmail) {
+        markDirty(senderEmail);
+        markDirty(receiverEmail);
+    }
+
+    private void refresh() {
+        try {
+            recordDirty();
+        } catch (Exception e) {
+            logger.error("Failed to record users for follow suggestions", e);
+        }
+        if (!followGraph.isReady()) {
+            return;
+        }
+        if (!jobLease.tryAcquire(LEASE, leaseMillis)) {
+            lastFullRunAt = 0; // another instance runs the job; start with a full run if it moves here
+            return;
+        }
+        try {
+            List<QueryDocumentSnapshot> marked = firestore.collection(DIRTY_COLLECTION).get().get().getDocuments();
+            if (lastFullRunAt == 0 || System.currentTimeMillis() - lastFullRunAt > fullRefreshMillis) {
+                compute(null);
+                lastFullRunAt = System.currentTimeMillis();
+            } else if (!marked.isEmpty()) {
+                Set<String> users = new HashSet<>();
+                for (QueryDocumentSnapshot doc : marked) {
+                    users.add(doc.getId());
+                    users.addAll(followGraph.getFollowerEmails(doc.getId()));
+                    users.addAll(followGraph.getFollowingEmails(doc.getId()));
+                }
+                reloadInterests(users);
+                compute(users);
+            }
+            clearDirty(marked);
+        } catch (Exception e) {
+            logger.error("Failed to compute follow suggestions", e);
+        }
+    }
+
+    // Move this instance's changed users to suggestionsDirty for whichever instance runs the job
+    private void recordDirty() throws ExecutionException, InterruptedException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> users = new ArrayList<>(dirty);
+        WriteBatch batch = firestore.batch();
+        int pending = 0;
+        for (String email : users) {
+            batch.set(firestore.collection(DIRTY_COLLECTION).document(email), Map.of("markedAt", FieldValue.serverTimestamp()));
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+        }
+        users.forEach(dirty::remove);
+    }
+
+    // Delete the marks a run has handled, unless they were set again since it read them
+    private void clearDirty(List<QueryDocumentSnapshot> marked) throws InterruptedException {
+        List<ApiFuture<WriteResult>> deletes = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : marked) {
+            deletes.add(doc.getReference().delete(Precondition.updatedAt(doc.getUpdateTime())));
+        }
+        for (ApiFuture<WriteResult> delete : deletes) {
+            try {
+                delete.get();
+            } catch (ExecutionException e) {
+                // Marked again meanwhile; the next run picks it up
+            }
+        }
+    }
+
+    // Recompute suggestions for the given users (everyone when null) and store them
+    private void compute(Set<String> only) throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        FollowGraph.Snapshot graph = followGraph.snapshot();
+        if (only == null) {
+            interestsByEmail = loadInterests();
+        }
+        Interests interests = new Interests(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            int[][] userInterests = interestsByEmail.get(graph.getEmail(i));
+            if (userInterests != null) {
+                interests.preferences[i] = userInterests[0];
+                interests.skills[i] = userInterests[1];
+            }
+        }
+
+        int[] users;
+        if (only == null) {
+            users = new int[graph.size()];
+            for (int i = 0; i < users.length; i++) {
+                users[i] = i;
+            }
+        } else {
+            users = new int[graph.size()];
+            int count = 0;
+            for (int i = 0; i < graph.size(); i++) {
+                if (only.contains(graph.getEmail(i))) {
+                    users[count++] = i;
+                }
+            }
+            users = Arrays.copyOf(users, count);
+        }
+
+        List<Suggestion>[] results = score(pool, graph, interests, users);
+        store(graph, users, results);
+
+        lastRunUsers = users.length;
+        lastRunMillis = System.currentTimeMillis() - start;
+        logger.info("Follow suggestions computed for {} users in {} ms", users.length, lastRunMillis);
+    }
+
+    // Ranked suggestions for each of the given users, indexed by graph user (null for the rest)
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static List<Suggestion>[] score(ForkJoinPool pool, FollowGraph.Snapshot graph, Interests interests, int[] users) {
+        List<Suggestion>[] results = new List[graph.size()];
+        // Scratch arrays are sized to the graph, so each pool thread allocates them once per run
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+        pool.invoke(new ScoreTask(graph, interests, users, 0, users.length, results, scratch));
+        return results;
+    }
+
+    // Re-read the preferences and skills of the given users (new users, edited profiles)
+    private void reloadInterests(Set<String> emails) throws ExecutionException, InterruptedException {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (String email : emails) {
+            if (!email.contains("/")) {
+                refs.add(firestore.collection("users").document(email));
+            }
+        }
+        for (int from = 0; from < refs.size(); from += GET_ALL_LIMIT) {
+            List<DocumentReference> chunk = refs.subList(from, Math.min(from + GET_ALL_LIMIT, refs.size()));
+            for (DocumentSnapshot doc : firestore.getAll(chunk.toArray(new DocumentReference[0]),
+                    FieldMask.of("preferences", "skills")).get()) {
+                if (doc.exists()) {
+                    interestsByEmail.put(doc.getId(), new int[][] {
+                            intern(doc.get("preferences"), interestTokens), intern(doc.get("skills"), interestTokens) });
+                } else {
+                    interestsByEmail.remove(doc.getId());
+                }
+            }
+        }
+    }
+
+    // Preferences and skills of every user, interned to sorted int arrays: { preferences, skills }
+    private Map<String, int[][]> loadInterests() throws ExecutionException, InterruptedException {
+        Map<String, int[][]> interests = new HashMap<>();
+        Map<String, Integer> tokens = new HashMap<>();
+        interestTokens = tokens;
+        Query base = firestore.collection("users").select("preferences", "skills")
+                .orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        DocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : docs) {
+                interests.put(doc.getId(), new int[][] {
+                        intern(doc.get("preferences"), tokens), intern(doc.get("skills"), tokens) });
+            }
+            if (docs.size() < PAGE_SIZE) {
+                return interests;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+    }
+
+    private void store(FollowGraph.Snapshot graph, int[] users, List<Suggestion>[] results)
+            throws ExecutionException, InterruptedException {
+        Timestamp computedAt = Timestamp.now();
+        WriteBatch batch = firestore.batch();
+        int pending = 0;
+        for (int user : users) {
+            String email = graph.getEmail(user);
+            if (email.contains("/")) {
+                continue;
+            }
+            List<Map<String, Object>> suggestions = new ArrayList<>();
+            for (Suggestion suggestion : results[user]) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("email", graph.getEmail(suggestion.user));
+                entry.put("mutualConnections", suggestion.mutual);
+                entry.put("sharedInterests", suggestion.shared);
+                entry.put("score", suggestion.score);
+                suggestions.add(entry);
+            }
+            batch.set(firestore.collection(COLLECTION_NAME).document(email),
+                    Map.of("suggestions", suggestions, "computedAt", computedAt));
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+        }
+    }
+
+    private static int[] intern(Object values, Map<String, Integer> tokens) {
+        if (!(values instanceof List<?>)) {
+            return new int[0];
+        }
+        int[] ids = new int[((List<?>) values).size()];
+        int count = 0;
+        for (Object value : (List<?>) values) {
+            if (value != null) {
+                ids[count++] = tokens.computeIfAbsent(value.toString().trim().toLowerCase(), key -> tokens.size());
+            }
+        }
+        int[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int countShared(int[] a, int[] b) {
+        int i = 0, j = 0, shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+        jobLease.release(LEASE);
+    }
+
+    // Scores users[from, to); splits in half until a range is small enough to run directly
+    private static class ScoreTask extends RecursiveAction {
+        private final FollowGraph.Snapshot graph;
+        private final Interests interests;
+        private final int[] users;
+        private final int from;
+        private final int to;
+        private final List<Suggestion>[] results;
+        private final ThreadLocal<Scratch> scratch;
+
+        private ScoreTask(FollowGraph.Snapshot graph, Interests interests, int[] users, int from, int to,
+                          List<Suggestion>[] results, ThreadLocal<Scratch> scratch) {
+            this.graph = graph;
+            this.interests = interests;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.scratch = scratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreTask(graph, interests, users, from, middle, results, scratch),
+                        new ScoreTask(graph, interests, users, middle, to, results, scratch));
+                return;
+            }
+            // Scratch space of this thread: counts[c] is the number of mutual connections with
+            // candidate c, excluded[c] == stamp marks c as not eligible. Stamps are unique within
+            // a run and counts are reset after each user, so leaves can share it.
+            Scratch local = scratch.get();
+            int[] counts = local.counts;
+            int[] excluded = local.excluded;
+            int[] touched = local.touched;
+            for (int i = from; i < to; i++) {
+                int user = users[i];
+                int stamp = i + 1;
+                excluded[user] = stamp;
+                for (int connection : graph.getConnections(user)) {
+                    excluded[connection] = stamp;
+                }
+                for (int requested : graph.getPendingOut(user)) {
+                    excluded[requested] = stamp;
+                }
+
+                int touchedCount = 0;
+                for (int middle : graph.getConnections(user)) {
+                    int[] next = graph.getConnections(middle);
+                    if (next.length > MAX_HOP_DEGREE) {
+                        continue;
+                    }
+                    for (int candidate : next) {
+                        if (excluded[candidate] == stamp) {
+                            continue;
+                        }
+                        if (counts[candidate]++ == 0) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = candidate;
+                        }
+                    }
+                }
+
+                PriorityQueue<Suggestion> top = new PriorityQueue<>(TOP_N + 1, Comparator.comparingDouble(s -> s.score));
+                for (int t = 0; t < touchedCount; t++) {
+                    int candidate = touched[t];
+                    int mutual = counts[candidate];
+                    counts[candidate] = 0;
+                    int sharedPreferences = countShared(interests.preferences[user], interests.preferences[candidate]);
+                    int sharedSkills = countShared(interests.skills[user], interests.skills[candidate]);
+                    double score = mutual * MUTUAL_WEIGHT + sharedPreferences * SHARED_PREFERENCE_WEIGHT
+                            + sharedSkills * SHARED_SKILL_WEIGHT;
+                    top.offer(new Suggestion(candidate, mutual, sharedPreferences + sharedSkills, score));
+                    if (top.size() > TOP_N) {
+                        top.poll();
+                    }
+                }
+
+                List<Suggestion> ranked = new ArrayList<>(top);
+                ranked.sort(Comparator.comparingDouble((Suggestion s) -> s.score).reversed());
+                results[user] = ranked;
+            }
+            local.touched = touched; // keep it if it grew
+        }
+    }
+
+    private static class Scratch {
+        private final int[] counts;
+        private final int[] excluded;
+        private int[] touched = new int[16];
+
+        private Scratch(int users) {
+            counts = new int[users];
+            excluded = new int[users];
+        }
+    }
+
+    // Interned preferences and skills per graph user (sorted, empty when unknown)
+    static class Interests {
+        final int[][] preferences;
+        final int[][] skills;
+
+        Interests(int users) {
+            preferences = new int[users][];
+            skills = new int[users][];
+            Arrays.fill(preferences, new int[0]);
+            Arrays.fill(skills, new int[0]);
+        }
+    }
+
+    static class Suggestion {
+        final int user;
+        final int mutual;
+        final int shared;
+        final double score;
+
+        private Suggestion(int user, int mutual, int shared, double score) {
+            this.user = user;
+            this.mutual = mutual;
+            this.shared = shared;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.designhive.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Lets a background job run on one instance at a time. A lease is leases/{name} holding the
+// owning instance and an expiry; it is taken or renewed in a transaction, and an instance that
+// stops renewing loses it once it expires. Expiry uses the instances' clocks, so the TTL should
+// be well above both the job's interval and any clock skew between instances.
+@Component
+public class JobLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLease.class);
+    private static final String LEASES = "leases";
+
+    private final Firestore firestore;
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    public JobLease(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    // ✅ Take or renew the named lease for ttlMillis; false if another instance holds it
+    public boolean tryAcquire(String name, long ttlMillis) {
+        DocumentReference ref = firestore.collection(LEASES).document(name);
+        try {
+            return firestore.runTransaction(transaction -> {
+                DocumentSnapshot lease = transaction.get(ref).get();
+                long now = System.currentTimeMillis();
+                Long expiresAt = lease.getLong("expiresAt");
+                if (lease.exists() && !owner.equals(lease.getString("owner"))
+                        && expiresAt != null && expiresAt > now) {
+                    return false;
+                }
+                transaction.set(ref, Map.of("owner", owner, "expiresAt", now + ttlMillis, "renewedAt", Timestamp.now()));
+                return true;
+            }).get();
+        } catch (Exception e) {
+            logger.warn("Failed to acquire lease {}", name, e);
+            return false;
+        }
+    }
+
+    // ✅ Give the lease up early (e.g. at shutdown) if this instance holds it
+    public void release(String name) {
+        DocumentReference ref = firestore.collection(LEASES).document(name);
+        try {
+            firestore.runTransaction(transaction -> {
+                if (owner.equals(transaction.get(ref).get().getString("owner"))) {
+                    transaction.delete(ref);
+                }
+                return null;
+            }).get();
+        } catch (Exception e) {
+            logger.warn("Failed to release lease {}", name, e);
+        }
+    }
+}
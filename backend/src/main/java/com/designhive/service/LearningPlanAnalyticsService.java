@@ -0,0 +1,475 @@
+package com.designhive.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Learning plan analytics. A background job aggregates learningPlans into per-user rollups
+// (analytics/learningPlans/users/{userId}) and a global rollup (analytics/learningPlans), which
+// the endpoints read directly. A full run scans every plan in pages and aggregates the pages in
+// parallel. Incremental runs only recompute users with plans whose updatedAt is past the last
+// run, or who were marked dirty (analytics/learningPlans/dirty/{userId}, written when a plan is
+// deleted), and patch the global rollup by the difference in transactions that read the old
+// rollups, so a run that repeats work never applies a delta twice. Only the instance holding
+// the analytics lease runs the job, and its first run (at startup, or after taking the lease
+// over) is a full one. Overdue counts are derived at read time from the open plans' end dates,
+// so they stay correct as days pass without a rerun.
+@Service
+public class LearningPlanAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearningPlanAnalyticsService.class);
+
+    private static final String PLANS = "learningPlans";
+    private static final int PAGE_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+    private static final int GET_ALL_SIZE = 100;
+    // Users patched into the global rollup per transaction
+    private static final int PATCH_SIZE = 200;
+    private static final String LEASE = "learningPlanAnalytics";
+    // Plans written just before the previous scan may commit after it; rescan that window
+    private static final long OVERLAP_SECONDS = 60;
+    private static final String[] FIELDS = { "userId", "status", "progress", "endDate", "totalTasks", "completedTasks" };
+
+    private final Firestore firestore;
+    private final JobLease jobLease;
+    private final ExecutorService workers;
+    private final long fullRefreshMillis;
+    private final long leaseMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "learning-plan-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long lastFullRunAt;
+    private volatile long lastRunMillis = -1;
+    private volatile int lastRunUsers;
+
+    @Autowired
+    public LearningPlanAnalyticsService(Firestore firestore, JobLease jobLease,
+                                        @Value("${learning-plans.analytics.parallelism:4}") int parallelism,
+                                        @Value("${learning-plans.analytics.refresh-minutes:15}") long refreshMinutes,
+                                        @Value("${learning-plans.analytics.full-refresh-hours:24}") long fullRefreshHours) {
+        this.firestore = firestore;
+        this.jobLease = jobLease;
+        this.fullRefreshMillis = TimeUnit.HOURS.toMillis(fullRefreshHours);
+        // Held across a few missed runs, so a slow full run does not hand the job over
+        this.leaseMillis = TimeUnit.MINUTES.toMillis(Math.max(1, refreshMinutes) * 3);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "learning-plan-analytics-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 1, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    // ✅ Global statistics across all users, from the last run
+    public Map<String, Object> getGlobalStats() throws ExecutionException, InterruptedException {
+        DocumentSnapshot global = globalRef().get().get();
+        Map<String, Object> result = Stats.from(global.exists() ? global.get("stats") : null).toResponse();
+        result.put("users", global.exists() ? global.get("users") : 0);
+        result.put("lastRunAt", global.exists() ? isoString(global.getTimestamp("lastRunAt")) : null);
+        result.put("lastRunMode", global.exists() ? global.getString("lastRunMode") : null);
+        return result;
+    }
+
+    // ✅ One user's statistics, from the last run
+    public Map<String, Object> getUserStats(String userId) throws ExecutionException, InterruptedException {
+        if (userId == null || userId.isBlank() || userId.contains("/")) {
+            throw new IllegalArgumentException("Invalid userId");
+        }
+        DocumentSnapshot user = userRef(userId).get().get();
+        Map<String, Object> result = Stats.from(user.exists() ? user.get("stats") : null).toResponse();
+        result.put("userId", userId);
+        return result;
+    }
+
+    public Map<String, Object> getJobStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastFullRunAt", lastFullRunAt);
+        stats.put("lastRunUsers", lastRunUsers);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+
+    // ✅ Have the next run recompute the user (e.g. after one of their plans was deleted,
+    // which the updatedAt scan cannot see)
+    public void markDirty(String userId) throws ExecutionException, InterruptedException {
+        if (userId == null || userId.isBlank() || userId.contains("/")) {
+            return;
+        }
+        dirtyCollection().document(userId).set(Map.of("markedAt", FieldValue.serverTimestamp())).get();
+    }
+
+    private void refresh() {
+        if (!jobLease.tryAcquire(LEASE, leaseMillis)) {
+            lastFullRunAt = 0; // another instance runs the job; start with a full run if it moves here
+            return;
+        }
+        try {
+            DocumentSnapshot global = globalRef().get().get();
+            Timestamp watermark = global.exists() ? global.getTimestamp("watermark") : null;
+            boolean fullRunDue = System.currentTimeMillis() - lastFullRunAt > fullRefreshMillis;
+            if (watermark == null || lastFullRunAt == 0 || fullRunDue) {
+                fullRun();
+                lastFullRunAt = System.currentTimeMillis();
+            } else {
+                incrementalRun(watermark);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to aggregate learning plan analytics", e);
+        }
+    }
+
+    // Scan every plan a page at a time; each page is aggregated by user on the worker pool
+    private void fullRun() throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Timestamp watermark = Timestamp.now();
+        List<QueryDocumentSnapshot> dirty = dirtyCollection().get().get().getDocuments();
+        Query base = firestore.collection(PLANS).select(FIELDS).orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        List<Future<Map<String, Stats>>> pages = new ArrayList<>();
+        DocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            pages.add(workers.submit(() -> aggregateByUser(docs)));
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+
+        Map<String, Stats> byUser = new HashMap<>();
+        for (Future<Map<String, Stats>> page : pages) {
+            page.get().forEach((userId, stats) -> byUser.merge(userId, stats, Stats::add));
+        }
+        Stats total = new Stats();
+        byUser.values().forEach(total::add);
+
+        // Rollups of users who no longer have plans are removed
+        Set<String> stale = new HashSet<>();
+        for (DocumentReference ref : usersCollection().listDocuments()) {
+            if (!byUser.containsKey(ref.getId())) {
+                stale.add(ref.getId());
+            }
+        }
+        writeUsers(byUser, stale);
+        writeGlobal(total, byUser.size(), watermark, "full");
+        clearDirty(dirty);
+
+        lastRunUsers = byUser.size();
+        lastRunMillis = System.currentTimeMillis() - start;
+        logger.info("Learning plan analytics (full): {} users in {} ms", byUser.size(), lastRunMillis);
+    }
+
+    // Recompute only users whose plans changed since the watermark, or who were marked dirty,
+    // and patch the global rollup
+    private void incrementalRun(Timestamp watermark) throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Timestamp nextWatermark = Timestamp.now();
+        Timestamp since = Timestamp.ofTimeSecondsAndNanos(Math.max(0, watermark.getSeconds() - OVERLAP_SECONDS), 0);
+
+        Set<String> changedUsers = new HashSet<>();
+        List<QueryDocumentSnapshot> dirty = dirtyCollection().get().get().getDocuments();
+        dirty.forEach(doc -> changedUsers.add(doc.getId()));
+        Query base = firestore.collection(PLANS)
+                .whereGreaterThan("updatedAt", since)
+                .orderBy("updatedAt")
+                .select("userId", "updatedAt")
+                .limit(PAGE_SIZE);
+        DocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            for (QueryDocumentSnapshot doc : docs) {
+                String userId = doc.getString("userId");
+                if (userId != null && !userId.isBlank() && !userId.contains("/")) {
+                    changedUsers.add(userId);
+                }
+            }
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+
+        // New rollups are computed in parallel, then patched in a chunk of users at a time
+        List<String> userIds = new ArrayList<>(changedUsers);
+        Map<String, Future<Stats>> recomputed = new HashMap<>();
+        for (String userId : userIds) {
+            recomputed.put(userId, workers.submit(() -> aggregateUser(userId)));
+        }
+        for (int i = 0; i < userIds.size(); i += PATCH_SIZE) {
+            Map<String, Stats> chunk = new HashMap<>();
+            for (String userId : userIds.subList(i, Math.min(i + PATCH_SIZE, userIds.size()))) {
+                chunk.put(userId, recomputed.get(userId).get());
+            }
+            patchUsers(chunk);
+        }
+        globalRef().update("watermark", nextWatermark, "lastRunAt", Timestamp.now(), "lastRunMode", "incremental").get();
+        clearDirty(dirty);
+
+        lastRunUsers = changedUsers.size();
+        lastRunMillis = System.currentTimeMillis() - start;
+        if (!changedUsers.isEmpty()) {
+            logger.info("Learning plan analytics (incremental): {} users in {} ms", changedUsers.size(), lastRunMillis);
+        }
+    }
+
+    // Replace the users' rollups and move the global rollup by the difference, in one
+    // transaction that reads the old rollups, so the patch applies exactly once
+    private void patchUsers(Map<String, Stats> recomputed) throws ExecutionException, InterruptedException {
+        List<DocumentReference> refs = new ArrayList<>();
+        refs.add(globalRef());
+        recomputed.keySet().forEach(userId -> refs.add(userRef(userId)));
+        firestore.runTransaction(transaction -> {
+            List<DocumentSnapshot> docs = transaction.getAll(refs.toArray(new DocumentReference[0])).get();
+            DocumentSnapshot global = docs.get(0);
+            Stats total = Stats.from(global.get("stats"));
+            Long storedUsers = global.getLong("users");
+            long users = storedUsers == null ? 0 : storedUsers;
+            Timestamp now = Timestamp.now();
+            for (DocumentSnapshot doc : docs.subList(1, docs.size())) {
+                Stats stats = recomputed.get(doc.getId());
+                if (doc.exists()) {
+                    total.subtract(Stats.from(doc.get("stats")));
+                    users--;
+                }
+                if (stats.plans > 0) {
+                    total.add(stats);
+                    users++;
+                    transaction.set(doc.getReference(), Map.of("stats", stats.toMap(), "updatedAt", now));
+                } else if (doc.exists()) {
+                    transaction.delete(doc.getReference());
+                }
+            }
+            transaction.set(globalRef(), Map.of("stats", total.toMap(), "users", Math.max(0, users)), SetOptions.merge());
+            return null;
+        }).get();
+    }
+
+    // Drop the dirty marks a run has handled; a mark set again since it was read stays
+    private void clearDirty(List<QueryDocumentSnapshot> dirty) throws InterruptedException {
+        List<ApiFuture<WriteResult>> deletes = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : dirty) {
+            deletes.add(doc.getReference().delete(Precondition.updatedAt(doc.getUpdateTime())));
+        }
+        for (ApiFuture<WriteResult> delete : deletes) {
+            try {
+                delete.get();
+            } catch (ExecutionException e) {
+                // Marked again meanwhile; the next run picks it up
+            }
+        }
+    }
+
+    private Map<String, Stats> aggregateByUser(List<QueryDocumentSnapshot> docs) {
+        Map<String, Stats> byUser = new HashMap<>();
+        for (QueryDocumentSnapshot doc : docs) {
+            String userId = doc.getString("userId");
+            if (userId != null && !userId.isBlank() && !userId.contains("/")) {
+                byUser.computeIfAbsent(userId, key -> new Stats()).addPlan(doc);
+            }
+        }
+        return byUser;
+    }
+
+    private Stats aggregateUser(String userId) throws ExecutionException, InterruptedException {
+        Stats stats = new Stats();
+        for (QueryDocumentSnapshot doc : firestore.collection(PLANS).whereEqualTo("userId", userId)
+                .select(FIELDS).get().get().getDocuments()) {
+            stats.addPlan(doc);
+        }
+        return stats;
+    }
+
+    private void writeUsers(Map<String, Stats> byUser, Set<String> removed) throws ExecutionException, InterruptedException {
+        Timestamp now = Timestamp.now();
+        WriteBatch batch = firestore.batch();
+        int pending = 0;
+        for (Map.Entry<String, Stats> entry : byUser.entrySet()) {
+            batch.set(userRef(entry.getKey()), Map.of("stats", entry.getValue().toMap(), "updatedAt", now));
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+        for (String userId : removed) {
+            batch.delete(userRef(userId));
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+        }
+    }
+
+    private void writeGlobal(Stats total, long users, Timestamp watermark, String mode)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> global = new HashMap<>();
+        global.put("stats", total.toMap());
+        global.put("users", Math.max(0, users));
+        global.put("watermark", watermark);
+        global.put("lastRunAt", Timestamp.now());
+        global.put("lastRunMode", mode);
+        globalRef().set(global).get();
+    }
+
+    private DocumentReference globalRef() {
+        return firestore.collection("analytics").document(PLANS);
+    }
+
+    private CollectionReference dirtyCollection() {
+        return globalRef().collection("dirty");
+    }
+
+    private CollectionReference usersCollection() {
+        return globalRef().collection("users");
+    }
+
+    private DocumentReference userRef(String userId) {
+        return usersCollection().document(userId);
+    }
+
+    private static String isoString(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toDate().toInstant().toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        jobLease.release(LEASE);
+    }
+
+    // Additive plan statistics, so rollups can be merged and a user's old rollup subtracted
+    static class Stats {
+        private long plans;
+        private long completedPlans;
+        private long progressSum;
+        private long totalTasks;
+        private long completedTasks;
+        private final Map<String, Long> statusCounts = new HashMap<>();
+        // Plans not yet at 100% by end date (yyyy-MM-dd), for overdue counts at read time
+        private final Map<String, Long> openEndDates = new HashMap<>();
+
+        void addPlan(DocumentSnapshot plan) {
+            Long progress = plan.getLong("progress");
+            long value = progress == null ? 0 : progress;
+            String status = plan.getString("status");
+            plans++;
+            progressSum += value;
+            totalTasks += longValue(plan.getLong("totalTasks"));
+            completedTasks += longValue(plan.getLong("completedTasks"));
+            statusCounts.merge(status == null || status.isBlank() ? "unknown" : status, 1L, Long::sum);
+            if (value >= 100 || "completed".equals(status)) {
+                completedPlans++;
+            }
+            String endDate = plan.getString("endDate");
+            if (value < 100 && endDate != null && endDate.length() >= 10) {
+                openEndDates.merge(endDate.substring(0, 10), 1L, Long::sum);
+            }
+        }
+
+        Stats add(Stats other) {
+            combine(other, 1);
+            return this;
+        }
+
+        void subtract(Stats other) {
+            combine(other, -1);
+        }
+
+        private void combine(Stats other, long sign) {
+            plans += sign * other.plans;
+            completedPlans += sign * other.completedPlans;
+            progressSum += sign * other.progressSum;
+            totalTasks += sign * other.totalTasks;
+            completedTasks += sign * other.completedTasks;
+            other.statusCounts.forEach((key, count) -> statusCounts.merge(key, sign * count, Long::sum));
+            other.openEndDates.forEach((key, count) -> openEndDates.merge(key, sign * count, Long::sum));
+            statusCounts.values().removeIf(count -> count <= 0);
+            openEndDates.values().removeIf(count -> count <= 0);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("plans", plans);
+            map.put("completedPlans", completedPlans);
+            map.put("progressSum", progressSum);
+            map.put("totalTasks", totalTasks);
+            map.put("completedTasks", completedTasks);
+            map.put("statusCounts", new HashMap<>(statusCounts));
+            map.put("openEndDates", new HashMap<>(openEndDates));
+            return map;
+        }
+
+        Map<String, Object> toResponse() {
+            long overdue = 0;
+            LocalDate today = LocalDate.now();
+            for (Map.Entry<String, Long> entry : openEndDates.entrySet()) {
+                try {
+                    if (LocalDate.parse(entry.getKey()).isBefore(today)) {
+                        overdue += entry.getValue();
+                    }
+                } catch (DateTimeParseException e) {
+                    // Not a yyyy-MM-dd end date; never counted as overdue
+                }
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("plans", plans);
+            response.put("completedPlans", completedPlans);
+            response.put("completionRate", plans == 0 ? 0.0 : (double) completedPlans / plans);
+            response.put("averageProgress", plans == 0 ? 0.0 : (double) progressSum / plans);
+            response.put("overduePlans", overdue);
+            response.put("statusCounts", new TreeMap<>(statusCounts));
+            response.put("totalTasks", totalTasks);
+            response.put("completedTasks", completedTasks);
+            response.put("taskCompletionRate", totalTasks == 0 ? 0.0 : (double) completedTasks / totalTasks);
+            return response;
+        }
+
+        static Stats from(Object stored) {
+            Stats stats = new Stats();
+            if (!(stored instanceof Map<?, ?>)) {
+                return stats;
+            }
+            Map<?, ?> map = (Map<?, ?>) stored;
+            stats.plans = longValue(map.get("plans"));
+            stats.completedPlans = longValue(map.get("completedPlans"));
+            stats.progressSum = longValue(map.get("progressSum"));
+            stats.totalTasks = longValue(map.get("totalTasks"));
+            stats.completedTasks = longValue(map.get("completedTasks"));
+            readCounts(map.get("statusCounts"), stats.statusCounts);
+            readCounts(map.get("openEndDates"), stats.openEndDates);
+            return stats;
+        }
+
+        private static void readCounts(Object stored, Map<String, Long> counts) {
+            if (stored instanceof Map<?, ?>) {
+                ((Map<?, ?>) stored).forEach((key, value) -> counts.put(String.valueOf(key), longValue(value)));
+            }
+        }
+
+        private static long longValue(Object value) {
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        }
+    }
+}
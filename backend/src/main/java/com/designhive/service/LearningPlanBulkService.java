@@ -0,0 +1,205 @@
+package com.designhive.service;
+
+import com.designhive.entity.LearningPlan;
+import com.designhive.repository.LearningPlanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Bulk import and export of learning plans as NDJSON (one plan per line). Imports are read
+// line by line and written in WriteBatches of up to 500 plans, with a bounded number of
+// batches committing while the next lines are parsed. Exports write each page of plans to
+// the response as it is read.
+//
+// Every imported plan gets a deterministic id: the "id" on the line, or else a hash of the
+// line, and keeps the createdAt/updatedAt it carries, so re-importing an export restores the
+// same plans. Plans are written with create, so an import never replaces a live plan (which
+// may have been edited since the export) unless the caller asks to overwrite.
+@Service
+public class LearningPlanBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearningPlanBulkService.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_ID_LENGTH = 1500;
+
+    private final LearningPlanService learningPlanService;
+    private final LearningPlanRepository learningPlanRepository;
+    private final LearningPlanAnalyticsService learningPlanAnalyticsService;
+    private final ObjectMapper objectMapper;
+    private final int maxInFlight;
+
+    @Autowired
+    public LearningPlanBulkService(LearningPlanService learningPlanService, LearningPlanRepository learningPlanRepository,
+                                   LearningPlanAnalyticsService learningPlanAnalyticsService, ObjectMapper objectMapper,
+                                   @Value("${learning-plans.import.max-in-flight:4}") int maxInFlight) {
+        this.learningPlanService = learningPlanService;
+        this.learningPlanRepository = learningPlanRepository;
+        this.learningPlanAnalyticsService = learningPlanAnalyticsService;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // ✅ Import NDJSON plans. Invalid lines are skipped and reported; returns { imported, failed, errors, elapsedMillis },
+    // plus "error" if a commit failed (e.g. a plan already exists and overwrite is false) and the import stopped early.
+    public Map<String, Object> importPlans(InputStream input, boolean overwrite) throws IOException, InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicLong imported = new AtomicLong();
+        Set<String> importedUsers = ConcurrentHashMap.newKeySet();
+        List<ApiFuture<List<WriteResult>>> commits = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        long failed = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, LearningPlan> batch = new LinkedHashMap<>();
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null && error.get() == null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                LearningPlan plan = objectMapper.readValue(line, LearningPlan.class);
+                validate(plan);
+                plan.setId(plan.getId() == null || plan.getId().isBlank() ? importId(line) : plan.getId());
+                Timestamp createdAt = plan.getCreatedAt();
+                Timestamp updatedAt = plan.getUpdatedAt();
+                learningPlanService.preparePlan(plan);
+                keepTimestamps(plan, createdAt, updatedAt);
+                batch.put(plan.getId(), plan); // a repeated line within a batch is written once
+            } catch (IOException | IllegalArgumentException e) {
+                failed++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("Line " + lineNumber + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (batch.size() == BATCH_SIZE) {
+                commits.add(commit(new ArrayList<>(batch.values()), overwrite, inFlight, imported, importedUsers, error));
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty() && error.get() == null) {
+            commits.add(commit(new ArrayList<>(batch.values()), overwrite, inFlight, imported, importedUsers, error));
+        }
+
+        // Let every commit settle, so the count below covers everything that was written
+        for (ApiFuture<List<WriteResult>> commit : commits) {
+            try {
+                commit.get();
+            } catch (ExecutionException e) {
+                // Recorded in error by the commit listener
+            }
+        }
+
+        // Imported plans keep their old updatedAt, which the analytics updatedAt scan would miss
+        for (String userId : importedUsers) {
+            learningPlanAnalyticsService.markDirty(userId);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("imported", imported.get());
+        result.put("failed", failed);
+        result.put("errors", errors);
+        result.put("elapsedMillis", elapsed);
+        if (error.get() != null) {
+            // Stopped early; the plans counted as imported are written, the rest of the file is not
+            logger.error("Learning plan import stopped after {} plans", imported.get(), error.get());
+            result.put("error", "Import stopped: " + error.get().getMessage()
+                    + ". Plans already written are not duplicated; import the rest again with overwrite=true to replace them.");
+            return result;
+        }
+        logger.info("Learning plan import: {} imported, {} rejected in {} ms", imported.get(), failed, elapsed);
+        return result;
+    }
+
+    // ✅ Write every plan (or one user's plans) as NDJSON, page by page. Returns plans written.
+    public long exportPlans(String userId, OutputStream output) throws Exception {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long exported = learningPlanRepository.forEachPlan(userId, plan -> {
+            writer.write(objectMapper.writeValueAsString(plan));
+            writer.write('\n');
+        });
+        writer.flush();
+        return exported;
+    }
+
+    private ApiFuture<List<WriteResult>> commit(List<LearningPlan> plans, boolean overwrite, Semaphore inFlight, AtomicLong imported,
+                                                Set<String> importedUsers, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        inFlight.acquire();
+        ApiFuture<List<WriteResult>> commit = learningPlanRepository.saveBatch(plans, overwrite);
+        int size = plans.size();
+        commit.addListener(() -> {
+            try {
+                commit.get();
+                imported.addAndGet(size);
+                plans.forEach(plan -> importedUsers.add(plan.getUserId()));
+            } catch (Exception e) {
+                error.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        }, MoreExecutors.directExecutor());
+        return commit;
+    }
+
+    // preparePlan stamps a new plan with the current time; an imported plan keeps its own
+    static void keepTimestamps(LearningPlan plan, Timestamp createdAt, Timestamp updatedAt) {
+        if (createdAt != null) {
+            plan.setCreatedAt(createdAt);
+        }
+        if (updatedAt != null) {
+            plan.setUpdatedAt(updatedAt);
+        }
+    }
+
+    // Id for a line without one: the same line always maps to the same plan
+    static String importId(String line) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(line.strip().getBytes(StandardCharsets.UTF_8));
+            return "import-" + HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static void validate(LearningPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Empty plan");
+        }
+        String id = plan.getId();
+        if (id != null && (id.contains("/") || id.equals(".") || id.equals("..") || id.length() > MAX_ID_LENGTH)) {
+            throw new IllegalArgumentException("id is not a valid document id");
+        }
+        if (plan.getUserId() == null || plan.getUserId().isBlank()) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        if (plan.getTitle() == null || plan.getTitle().isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+    }
+}
@@ -8,8 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
@@ -19,35 +21,51 @@ public class LearningPlanService {
     @Autowired
     private LearningPlanRepository learningPlanRepository;
 
+    @Autowired
+    private LearningPlanAnalyticsService learningPlanAnalyticsService;
+
     // Method to generate a unique ID for tasks
     private String generateTaskId() {
         return UUID.randomUUID().toString(); // Generates a random UUID for each task
     }
 
-    // Method to get the current timestamp in a formatted string
-    private String getFormattedTimestamp() {
-        Timestamp now = Timestamp.now();
-        Date date = new Date(now.toSqlTimestamp().getTime());
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        return sdf.format(date);
-    }
-
-    // Method to calculate the progress of a learning plan based on task completion
+    // Method to calculate the progress of a learning plan from its task counters
     private int calculateProgress(LearningPlan plan) {
-        List<Task> tasks = plan.getTasks();
-        if (tasks == null || tasks.isEmpty()) return 0;
+        return LearningPlanRepository.calculateProgress(plan.getCompletedTasks(), plan.getTotalTasks());
+    }
 
-        long completed = tasks.stream().filter(Task::isCompleted).count();
-        return (int) ((completed * 100.0f) / tasks.size());
+    // ✅ Give every task an id and its position in the list (tasks are stored keyed by id)
+    private void prepareTasks(LearningPlan plan) {
+        if (plan.getTasks() == null) {
+            plan.setTasks(new ArrayList<>());
+        }
+        // Counters are set here once; task mutations keep them up to date incrementally
+        long position = 0;
+        int completed = 0;
+        for (Task task : plan.getTasks()) {
+            if (task.getId() == null || task.getId().isEmpty()) {
+                task.setId(generateTaskId());
+            }
+            task.setPosition(position++);
+            if (task.isCompleted()) completed++;
+        }
+        plan.setTotalTasks(plan.getTasks().size());
+        plan.setCompletedTasks(completed);
     }
 
     // Create a new Learning Plan
     public LearningPlan createLearningPlan(LearningPlan plan) throws ExecutionException, InterruptedException {
+        preparePlan(plan);
+        return learningPlanRepository.save(plan);
+    }
+
+    // Defaults, timestamps, task ids and progress for a new plan (shared with bulk import)
+    void preparePlan(LearningPlan plan) {
         if (plan.getStatus() == null || plan.getStatus().isEmpty()) {
             plan.setStatus("planned");
         }
 
-        String now = getFormattedTimestamp();
+        Timestamp now = Timestamp.now();
         plan.setCreatedAt(now);
         plan.setUpdatedAt(now);
 
@@ -57,18 +75,10 @@ public class LearningPlanService {
         }
 
         // ✅ Assign unique IDs to all tasks if missing
-        if (plan.getTasks() != null) {
-            for (Task task : plan.getTasks()) {
-                if (task.getId() == null || task.getId().isEmpty()) {
-                    task.setId(generateTaskId());
-                }
-            }
-        }
+        prepareTasks(plan);
 
         // Set calculated progress
         plan.setProgress(calculateProgress(plan));
-
-        return learningPlanRepository.save(plan);
     }
 
     // Get a specific Learning Plan by ID
@@ -81,22 +91,21 @@ public class LearningPlanService {
         return learningPlanRepository.findByUserId(userId);
     }
 
+    // Plan headers and progress for a user, without task bodies
+    public List<Map<String, Object>> getLearningPlanSummariesByUserId(String userId) throws ExecutionException, InterruptedException {
+        return learningPlanRepository.findSummariesByUserId(userId);
+    }
+
     // Update an existing Learning Plan
     public LearningPlan updateLearningPlan(String id, LearningPlan plan) throws ExecutionException, InterruptedException {
         LearningPlan existingPlan = learningPlanRepository.findById(id);
         if (existingPlan != null) {
             plan.setId(id);
             plan.setCreatedAt(existingPlan.getCreatedAt());
-            plan.setUpdatedAt(getFormattedTimestamp());
+            plan.setUpdatedAt(Timestamp.now());
 
             // ✅ Assign unique IDs to any tasks missing one
-            if (plan.getTasks() != null) {
-                for (Task task : plan.getTasks()) {
-                    if (task.getId() == null || task.getId().isEmpty()) {
-                        task.setId(generateTaskId());
-                    }
-                }
-            }
+            prepareTasks(plan);
 
             plan.setProgress(calculateProgress(plan)); // Recalculate on update
             return learningPlanRepository.save(plan);
@@ -107,57 +116,28 @@ public class LearningPlanService {
 
     // Delete a Learning Plan by ID
     public boolean deleteLearningPlan(String id) throws ExecutionException, InterruptedException {
-        return learningPlanRepository.deleteById(id);
+        LearningPlan plan = learningPlanRepository.findById(id);
+        boolean deleted = learningPlanRepository.deleteById(id);
+        if (plan != null) {
+            // A deleted plan has no updatedAt left to scan for; recount its owner on the next run
+            learningPlanAnalyticsService.markDirty(plan.getUserId());
+        }
+        return deleted;
     }
 
     // Add task to learning plan
     public LearningPlan addTask(String planId, Task task) throws ExecutionException, InterruptedException {
-        LearningPlan plan = learningPlanRepository.findById(planId);
-        if (plan == null) {
-            return null; // Plan not found
-        }
-
         task.setId(generateTaskId());  // Generate a unique ID for the task
-        plan.getTasks().add(task);
-
-        plan.setProgress(calculateProgress(plan));
-        return learningPlanRepository.save(plan);
+        return learningPlanRepository.addTask(planId, task);
     }
 
     // Update task in learning plan
     public LearningPlan updateTask(String planId, String taskId, Task updatedTask) throws ExecutionException, InterruptedException {
-        LearningPlan plan = learningPlanRepository.findById(planId);
-        if (plan == null) {
-            return null;
-        }
-
-        for (Task task : plan.getTasks()) {
-            if (task.getId().equals(taskId)) {
-                task.setTitle(updatedTask.getTitle());
-                task.setDescription(updatedTask.getDescription());
-                task.setCompleted(updatedTask.isCompleted());
-                break;
-            }
-        }
-
-        plan.setProgress(calculateProgress(plan));
-        return learningPlanRepository.save(plan);
+        return learningPlanRepository.updateTask(planId, taskId, updatedTask);
     }
 
     // Delete task from learning plan
     public boolean deleteTask(String planId, String taskId) throws ExecutionException, InterruptedException {
-        LearningPlan plan = learningPlanRepository.findById(planId);
-        if (plan == null) {
-            return false;
-        }
-
-        boolean taskRemoved = plan.getTasks().removeIf(task -> task.getId().equals(taskId));
-
-        if (taskRemoved) {
-            plan.setProgress(calculateProgress(plan));
-            learningPlanRepository.save(plan);
-        }
-
-        return taskRemoved;
+        return learningPlanRepository.deleteTask(planId, taskId);
     }
 }
@@ -0,0 +1,181 @@
+package com.designhive.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Queues "liked your post" emails instead of sending them inside the like request.
+// Every window the queued likes are grouped per author and post and sent as one email
+// ("Ana and 11 others liked your post!") from a small pool with retries, so like latency
+// does not depend on SMTP.
+@Service
+public class LikeNotificationOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeNotificationOutbox.class);
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    private final EmailService emailService;
+    private final BlockingQueue<LikeEvent> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "like-notification-flush"));
+    private final ExecutorService senders;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalSendMillis = new AtomicLong();
+    private final AtomicLong maxSendMillis = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Autowired
+    public LikeNotificationOutbox(EmailService emailService,
+                                  @Value("${notifications.likes.window-seconds:60}") long windowSeconds,
+                                  @Value("${notifications.likes.mail-concurrency:2}") int mailConcurrency) {
+        this.emailService = emailService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(mailConcurrency,
+                runnable -> daemon(runnable, "like-notification-mail-" + threadCount.incrementAndGet()));
+        flusher.scheduleWithFixedDelay(this::flush, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+    }
+
+    // ✅ Record a like to be announced to the post author in the next batch
+    public void enqueue(String authorEmail, String postId, String likerUsername) {
+        if (authorEmail == null) {
+            return;
+        }
+        if (queue.offer(new LikeEvent(authorEmail, postId, likerUsername))) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            logger.warn("Like notification queue full, dropping notification for {}", authorEmail);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("inFlight", inFlight.get());
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("retries", retries.get());
+        long sentCount = sent.get();
+        stats.put("avgSendMillis", sentCount == 0 ? 0 : totalSendMillis.get() / sentCount);
+        stats.put("maxSendMillis", maxSendMillis.get());
+        return stats;
+    }
+
+    // Group everything queued so far by author and post, one email per group
+    private void flush() {
+        List<LikeEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<LikeEvent>> groups = new LinkedHashMap<>();
+        for (LikeEvent event : events) {
+            groups.computeIfAbsent(event.authorEmail + "|" + event.postId, key -> new ArrayList<>()).add(event);
+        }
+
+        for (List<LikeEvent> group : groups.values()) {
+            inFlight.incrementAndGet();
+            senders.execute(() -> {
+                try {
+                    send(group);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void send(List<LikeEvent> group) {
+        String authorEmail = group.get(0).authorEmail;
+        Set<String> likers = new LinkedHashSet<>();
+        for (LikeEvent event : group) {
+            likers.add(event.likerUsername);
+        }
+        String first = likers.iterator().next();
+        String subject;
+        String body;
+        if (likers.size() == 1) {
+            subject = first + " liked your post!";
+            body = "\"" + first + "\" liked your post.\n\nCome back and see the engagement!";
+        } else {
+            int others = likers.size() - 1;
+            subject = first + " and " + others + (others == 1 ? " other" : " others") + " liked your post!";
+            body = likers.size() + " people liked your post, including \"" + first
+                    + "\".\n\nCome back and see the engagement!";
+        }
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+                emailService.sendEmail(authorEmail, subject, body);
+                long elapsed = System.currentTimeMillis() - start;
+                sent.incrementAndGet();
+                totalSendMillis.addAndGet(elapsed);
+                maxSendMillis.accumulateAndGet(elapsed, Math::max);
+                return;
+            } catch (Exception e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.incrementAndGet();
+                    logger.error("Failed to send like notification to {}", authorEmail, e);
+                    return;
+                }
+                retries.incrementAndGet();
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * (1L << (attempt - 1)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+        senders.shutdown();
+        try {
+            senders.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class LikeEvent {
+        private final String authorEmail;
+        private final String postId;
+        private final String likerUsername;
+
+        private LikeEvent(String authorEmail, String postId, String likerUsername) {
+            this.authorEmail = authorEmail;
+            this.postId = postId;
+            this.likerUsername = likerUsername;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.designhive.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque cursor for queries ordered by a timestamp field and then by document id.
+// Format: base64url("<seconds>:<nanos>:<document id>"). Decoding gives the values to pass
+// to startAfter/endBefore, so the next page is one bounded query however deep it is.
+public final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    public static String encode(DocumentSnapshot doc, String timestampField) {
+        Timestamp timestamp = doc.getTimestamp(timestampField);
+        long seconds = timestamp != null ? timestamp.getSeconds() : 0;
+        int nanos = timestamp != null ? timestamp.getNanos() : 0;
+        String raw = seconds + ":" + nanos + ":" + doc.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ✅ { timestamp, documentId } for the cursor, or IllegalArgumentException if it is malformed
+    public static Object[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Timestamp timestamp = Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+            return new Object[] { timestamp, parts[2] };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
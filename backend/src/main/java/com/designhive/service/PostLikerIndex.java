@@ -0,0 +1,270 @@
+package com.designhive.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Answers "has this viewer liked these posts?" from the posts/{id}/likers subcollection.
+// Posts that are asked about often get an in-memory bloom filter of their likers, so the
+// common "not liked" answer needs no Firestore read. A "maybe" from the filter, and any
+// post without a filter, is checked with one batched getAll. Filters are rebuilt after a
+// TTL so likes written by other instances are picked up.
+//
+// Known gap: likes made before likers were tracked have no likers document, and who made
+// them was never stored. A startup pass records their number on each post as "legacyLikes".
+// They stay in the count for good: an unlike without a likers document changes nothing, since
+// it cannot be told apart from an unlike by someone who never liked the post.
+@Component
+public class PostLikerIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostLikerIndex.class);
+
+    private static final int HOT_THRESHOLD = 5;
+    private static final long FILTER_TTL_MILLIS = 60_000;
+    private static final int MAX_FILTERS = 1000;
+    private static final int MIN_EXPECTED_LIKERS = 1000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int BATCH_SIZE = 100;
+    private static final int PAGE_SIZE = 200;
+    private static final long LEGACY_LIKES_VERSION = 1;
+
+    private final Firestore firestore;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-liker-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LinkedHashMap<String, LikerFilter> filters = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LikerFilter> eldest) {
+            return size() > MAX_FILTERS;
+        }
+    };
+    private final Map<String, Integer> lookups = new HashMap<>();
+    private final Set<String> building = new HashSet<>();
+    private final Map<String, List<String>> likedWhileBuilding = new HashMap<>();
+
+    @Autowired
+    public PostLikerIndex(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    // ✅ For each post id, whether the viewer has liked it
+    public Map<String, Boolean> hasLiked(String viewerEmail, Collection<String> postIds)
+            throws ExecutionException, InterruptedException {
+        Map<String, Boolean> liked = new LinkedHashMap<>();
+        if (viewerEmail == null || viewerEmail.isBlank() || viewerEmail.contains("/")) {
+            postIds.forEach(postId -> liked.put(postId, false));
+            return liked;
+        }
+
+        List<String> toCheck = new ArrayList<>();
+        for (String postId : new LinkedHashSet<>(postIds)) {
+            if (!isValidId(postId)) {
+                liked.put(postId, false); // not a document id, so not a post that can be liked
+                continue;
+            }
+            LikerFilter filter = filterFor(postId);
+            if (filter != null && !filter.mightContain(viewerEmail)) {
+                liked.put(postId, false);
+            } else {
+                toCheck.add(postId);
+            }
+        }
+
+        List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+        for (int i = 0; i < toCheck.size(); i += BATCH_SIZE) {
+            DocumentReference[] refs = toCheck.subList(i, Math.min(i + BATCH_SIZE, toCheck.size())).stream()
+                    .map(postId -> likerRef(postId, viewerEmail))
+                    .toArray(DocumentReference[]::new);
+            futures.add(firestore.getAll(refs));
+        }
+        for (ApiFuture<List<DocumentSnapshot>> future : futures) {
+            for (DocumentSnapshot doc : future.get()) {
+                String postId = doc.getReference().getParent().getParent().getId();
+                liked.put(postId, doc.exists());
+            }
+        }
+        return liked;
+    }
+
+    public DocumentReference likerRef(String postId, String email) {
+        return firestore.collection("posts").document(postId).collection("likers").document(email);
+    }
+
+    // Count each post's likes that have no likers document, once; meta/postLegacyLikes records
+    // that this has been done. Each post is counted in a transaction with its likers, so a like
+    // at the same time is not mistaken for a legacy one. Sharded posts are left for a later start.
+    @EventListener(ApplicationReadyEvent.class)
+    public void recordLegacyLikes() {
+        DocumentReference marker = firestore.collection("meta").document("postLegacyLikes");
+        try {
+            Long version = marker.get().get().getLong("version");
+            if (version != null && version >= LEGACY_LIKES_VERSION) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            int posts = 0;
+            long legacyLikes = 0;
+            boolean skipped = false;
+            Query base = firestore.collection("posts")
+                    .select("likes", "legacyLikes", "likeShards")
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                for (QueryDocumentSnapshot doc : docs) {
+                    Long likes = doc.getLong("likes");
+                    if (likes == null || likes <= 0 || doc.contains("legacyLikes")) {
+                        continue;
+                    }
+                    if (doc.contains("likeShards")) {
+                        skipped = true;
+                        continue;
+                    }
+                    DocumentReference postRef = doc.getReference();
+                    AggregateQuery likers = postRef.collection("likers").count();
+                    legacyLikes += firestore.runTransaction(transaction -> {
+                        DocumentSnapshot post = transaction.get(postRef).get();
+                        Long current = post.getLong("likes");
+                        if (!post.exists() || current == null || post.contains("likeShards")) {
+                            return 0L;
+                        }
+                        long untracked = Math.max(0, current - transaction.get(likers).get().getCount());
+                        transaction.update(postRef, "legacyLikes", untracked);
+                        return untracked;
+                    }).get();
+                    posts++;
+                }
+                if (docs.size() < PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+
+            if (!skipped) {
+                marker.set(Map.of("version", LEGACY_LIKES_VERSION, "recordedAt", FieldValue.serverTimestamp())).get();
+            }
+            logger.info("Legacy likes recorded: {} untracked likes on {} posts in {} ms",
+                    legacyLikes, posts, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to record legacy likes", e);
+        }
+    }
+
+    private static boolean isValidId(String id) {
+        return id != null && !id.isBlank() && !id.contains("/") && !id.equals(".") && !id.equals("..");
+    }
+
+    // ✅ Keep a live filter current after a like on this instance
+    public synchronized void recordLike(String postId, String email) {
+        LikerFilter filter = filters.get(postId);
+        if (filter != null) {
+            filter.put(email);
+        } else if (building.contains(postId)) {
+            likedWhileBuilding.computeIfAbsent(postId, id -> new ArrayList<>()).add(email);
+        }
+    }
+
+    public synchronized void removePost(String postId) {
+        filters.remove(postId);
+        lookups.remove(postId);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("filters", filters.size());
+        stats.put("trackedPosts", lookups.size());
+        stats.put("building", building.size());
+        return stats;
+    }
+
+    // Live filter for the post, scheduling a build once the post has been asked about often enough
+    private synchronized LikerFilter filterFor(String postId) {
+        LikerFilter filter = filters.get(postId);
+        if (filter != null && !filter.isExpired()) {
+            return filter;
+        }
+        if (filter != null) {
+            filters.remove(postId);
+        }
+
+        int count = lookups.merge(postId, 1, Integer::sum);
+        if (count >= HOT_THRESHOLD && building.add(postId)) {
+            lookups.remove(postId);
+            builder.execute(() -> build(postId));
+        }
+        if (lookups.size() > MAX_FILTERS * 10) {
+            lookups.clear();
+        }
+        return null;
+    }
+
+    private void build(String postId) {
+        try {
+            List<QueryDocumentSnapshot> likers = firestore.collection("posts").document(postId).collection("likers")
+                    .select(FieldPath.documentId()).get().get().getDocuments();
+            LikerFilter filter = new LikerFilter(Math.max(MIN_EXPECTED_LIKERS, likers.size() * 2));
+            for (QueryDocumentSnapshot liker : likers) {
+                filter.put(liker.getId());
+            }
+            synchronized (this) {
+                List<String> pending = likedWhileBuilding.get(postId);
+                if (pending != null) {
+                    pending.forEach(filter::put);
+                }
+                filters.put(postId, filter);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to build liker filter for post {}", postId, e);
+        } finally {
+            synchronized (this) {
+                building.remove(postId);
+                likedWhileBuilding.remove(postId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private static class LikerFilter {
+        private final BloomFilter<CharSequence> bloom;
+        private final long expiresAt = System.currentTimeMillis() + FILTER_TTL_MILLIS;
+
+        private LikerFilter(int expectedLikers) {
+            this.bloom = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedLikers, FALSE_POSITIVE_RATE);
+        }
+
+        private synchronized void put(String email) {
+            bloom.put(email);
+        }
+
+        private synchronized boolean mightContain(String email) {
+            return bloom.mightContain(email);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
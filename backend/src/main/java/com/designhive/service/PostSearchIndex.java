@@ -0,0 +1,371 @@
+package com.designhive.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Embedded Lucene index over post content and tag fields, ranked with BM25.
+// Posts written on this instance are indexed as they are written. Posts written on other
+// instances are picked up by polling for createdAt/updatedAt past a watermark, which is the
+// newest of those timestamps seen in Firestore (not this instance's clock) minus a small
+// overlap for clock skew between writers. The index and its watermark live in a local
+// directory, so a restart only catches up from there instead of re-reading the collection.
+// Deletions leave no trace in that scan, so the indexed ids are periodically compared with
+// the post ids in Firestore and the ones that are gone are dropped.
+@Component
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_TAGS = "tags";
+    private static final String WATERMARK_KEY = "watermarkMillis";
+    // Posts stamped up to this long before the watermark are read again on each poll
+    private static final long WATERMARK_OVERLAP_MILLIS = 60_000;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final float TAG_BOOST = 2.0f;
+    private static final float PREFIX_BOOST = 0.5f;
+
+    private final Firestore firestore;
+    private final Path indexDir;
+    private final long pollSeconds;
+    private final long reconcileMinutes;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-search-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private volatile boolean ready;
+    // Newest createdAt/updatedAt read from Firestore by a poll; only the poller thread moves it
+    private volatile long watermarkMillis;
+    private volatile long lastPollMillis = -1;
+    private volatile long lastReconcileAt;
+
+    @Autowired
+    public PostSearchIndex(Firestore firestore, @Value("${search.index-dir:data/search-index}") String indexDir,
+                           @Value("${search.poll-seconds:30}") long pollSeconds,
+                           @Value("${search.reconcile-minutes:60}") long reconcileMinutes) {
+        this.firestore = firestore;
+        this.indexDir = Paths.get(indexDir);
+        this.pollSeconds = Math.max(1, pollSeconds);
+        this.reconcileMinutes = reconcileMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openOnStartup() {
+        try {
+            open();
+            catchUp(true);
+            ready = true;
+        } catch (Exception e) {
+            logger.error("Failed to open post search index", e);
+        }
+        committer.scheduleWithFixedDelay(this::poll, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    // Catch up on other instances' writes (and on startup, if it failed); reconcile deletions now and then
+    private void poll() {
+        try {
+            if (writer == null) {
+                open();
+            }
+            boolean reconcile = reconcileMinutes > 0
+                    && System.currentTimeMillis() - lastReconcileAt >= TimeUnit.MINUTES.toMillis(reconcileMinutes);
+            catchUp(reconcile);
+            ready = true;
+        } catch (Exception e) {
+            logger.error("Failed to poll posts for the search index", e);
+            commitIfDirty(); // still keep posts indexed on this instance
+        }
+    }
+
+    private synchronized void open() throws IOException {
+        Files.createDirectories(indexDir);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(FSDirectory.open(indexDir), config);
+        searcherManager = new SearcherManager(writer, null);
+        watermarkMillis = getWatermarkMillis();
+    }
+
+    // Index posts created or updated past the watermark (all posts on first start), then commit
+    // with the new watermark. With reconcile, also drop indexed posts deleted from Firestore.
+    private synchronized void catchUp(boolean reconcile) throws Exception {
+        long start = System.currentTimeMillis();
+        long watermark = watermarkMillis;
+        long since = watermark == 0 ? 0 : watermark - WATERMARK_OVERLAP_MILLIS;
+        long newest = watermark;
+        int indexed = 0;
+        for (String field : List.of("createdAt", "updatedAt")) {
+            Query base = firestore.collection("posts")
+                    .whereGreaterThan(field, Timestamp.of(new Date(since)))
+                    .orderBy(field)
+                    .limit(REBUILD_PAGE_SIZE);
+            DocumentSnapshot last = null;
+            while (true) {
+                List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+                for (QueryDocumentSnapshot doc : docs) {
+                    indexPost(doc.getId(), doc.getData());
+                    Timestamp stamp = doc.getTimestamp(field);
+                    if (stamp != null) {
+                        newest = Math.max(newest, stamp.toDate().getTime());
+                    }
+                    indexed++;
+                }
+                if (docs.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+        }
+        int removed = 0;
+        if (reconcile) {
+            removed = watermark == 0 ? 0 : removeDeleted();
+            lastReconcileAt = System.currentTimeMillis();
+        }
+        watermarkMillis = newest;
+        if (newest != watermark || removed > 0) {
+            dirty.set(true);
+        }
+        commitIfDirty();
+        lastPollMillis = System.currentTimeMillis() - start;
+        if (!ready || removed > 0) {
+            logger.info("Post search index caught up: {} posts re-indexed, {} deleted posts removed in {} ms",
+                    indexed, removed, lastPollMillis);
+        }
+    }
+
+    // Remove indexed posts that no longer exist in Firestore. Only ids are read on both sides.
+    private int removeDeleted() throws Exception {
+        Set<String> indexed = new HashSet<>();
+        searcherManager.maybeRefreshBlocking();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            StoredFields storedFields = reader.storedFields();
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        indexed.add(storedFields.document(leaf.docBase + doc).get(FIELD_ID));
+                    }
+                }
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+
+        Query base = firestore.collection("posts")
+                .select(FieldPath.documentId())
+                .orderBy(FieldPath.documentId())
+                .limit(REBUILD_PAGE_SIZE);
+        DocumentSnapshot last = null;
+        while (!indexed.isEmpty()) {
+            List<QueryDocumentSnapshot> docs = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            docs.forEach(doc -> indexed.remove(doc.getId()));
+            if (docs.size() < REBUILD_PAGE_SIZE) {
+                break;
+            }
+            last = docs.get(docs.size() - 1);
+        }
+        for (String postId : indexed) {
+            removePost(postId);
+        }
+        return indexed.size();
+    }
+
+    // ✅ Add or replace a post. postData holds the raw Firestore fields.
+    public void indexPost(String postId, Map<String, Object> postData) {
+        if (writer == null || postData == null) {
+            return;
+        }
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, postId, Field.Store.YES));
+        Object content = postData.get("content");
+        doc.add(new TextField(FIELD_CONTENT, content == null ? "" : content.toString(), Field.Store.NO));
+        doc.add(new TextField(FIELD_TAGS, joinTags(postData), Field.Store.NO));
+        try {
+            writer.updateDocument(new Term(FIELD_ID, postId), doc);
+            searcherManager.maybeRefresh();
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.error("Failed to index post {}", postId, e);
+        }
+    }
+
+    public void removePost(String postId) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(new Term(FIELD_ID, postId));
+            searcherManager.maybeRefresh();
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.error("Failed to remove post {} from search index", postId, e);
+        }
+    }
+
+    // ✅ Whether the index has caught up with Firestore at least once and can answer searches
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ✅ Post ids matching the keyword text, best match first. Every term also matches as a prefix.
+    // Nothing matches until the first catch-up has finished (see isReady).
+    public List<String> search(String text, int offset, int limit) throws IOException {
+        if (!ready) {
+            return Collections.emptyList();
+        }
+        List<String> terms = analyze(text);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term(FIELD_CONTENT, term)), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(FIELD_TAGS, term)), TAG_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(FIELD_CONTENT, term)), PREFIX_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(FIELD_TAGS, term)), PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+            query.add(termQuery.build(), BooleanClause.Occur.SHOULD);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query.build(), offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            List<String> postIds = new ArrayList<>();
+            for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                postIds.add(storedFields.document(topDocs.scoreDocs[i].doc).get(FIELD_ID));
+            }
+            return postIds;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        committer.shutdown();
+        try {
+            if (writer != null) {
+                commit();
+                searcherManager.close();
+                writer.close();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to close post search index", e);
+        }
+    }
+
+    private void commitIfDirty() {
+        if (dirty.getAndSet(false)) {
+            try {
+                commit();
+            } catch (IOException e) {
+                dirty.set(true);
+                logger.error("Failed to commit post search index", e);
+            }
+        }
+    }
+
+    // The commit records the watermark, so the next start knows where to catch up from. Posts
+    // indexed locally past the watermark are simply read again by the next catch-up.
+    private synchronized void commit() throws IOException {
+        writer.setLiveCommitData(Map.of(WATERMARK_KEY, Long.toString(watermarkMillis)).entrySet());
+        writer.commit();
+    }
+
+    // ✅ Index freshness, for the stats endpoints
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("watermarkMillis", watermarkMillis);
+        stats.put("lastPollMillis", lastPollMillis);
+        return stats;
+    }
+
+    // 0 (index everything) for a new index, or one committed with only a local sync time
+    private long getWatermarkMillis() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (WATERMARK_KEY.equals(entry.getKey())) {
+                    return Long.parseLong(entry.getValue());
+                }
+            }
+        }
+        return 0;
+    }
+
+    private String joinTags(Map<String, Object> postData) {
+        StringBuilder tags = new StringBuilder();
+        for (String field : PostTagIndex.TAG_FIELDS) {
+            Object value = postData.get(field);
+            if (value instanceof List<?>) {
+                for (Object item : (List<?>) value) {
+                    if (item != null) {
+                        tags.append(item).append(' ');
+                    }
+                }
+            } else if (value != null) {
+                tags.append(value).append(' ');
+            }
+        }
+        return tags.toString();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(FIELD_CONTENT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+}
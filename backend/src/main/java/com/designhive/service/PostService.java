@@ -1,6 +1,7 @@
 package com.designhive.service;
 
 import com.designhive.entity.Post;
+import com.designhive.repository.UserRepository;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
@@ -9,6 +10,7 @@ import com.google.firebase.cloud.FirestoreClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -16,29 +18,116 @@ import java.util.stream.Collectors;
 @Service
 public class PostService {
 
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+    private static final int MAX_LEGACY_POSTS = 100;
+    private static final int POST_BATCH_SIZE = 100;
+    private static final int MAX_PAGE_OFFSET = 500;
+
     private final Firestore firestore = FirestoreClient.getFirestore();
    @Autowired
-private EmailService emailService;
-    // ✅ Get all posts (optimized, sorted)
-    public List<Map<String, Object>> getAllPosts() throws ExecutionException, InterruptedException {
+private LikeNotificationOutbox likeNotificationOutbox;
+
+    @Autowired
+    private ShardedLikeCounter shardedLikeCounter;
+
+    @Autowired
+    private PostLikerIndex postLikerIndex;
+
+    @Autowired
+    private UserProfileResolver userProfileResolver;
+
+    @Autowired
+    private BulkDeleter bulkDeleter;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostTagIndex postTagIndex;
+
+    @Autowired
+    private RecommendationScorer recommendationScorer;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    // ✅ Newest posts as a plain list, for clients of the old unpaged endpoint. Capped at
+    // MAX_LEGACY_POSTS; getFeedPage pages through the rest.
+    public List<Map<String, Object>> getRecentPosts(String viewerEmail) throws ExecutionException, InterruptedException {
         List<QueryDocumentSnapshot> documents = firestore.collection("posts")
-                .orderBy("createdAt", Query.Direction.DESCENDING).get().get().getDocuments();
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(MAX_LEGACY_POSTS).get().get().getDocuments();
+        List<Map<String, Object>> posts = toFeedPosts(documents);
+        attachLikedByViewer(posts, viewerEmail);
+        return posts;
+    }
+
+    // ✅ Get one page of the feed, newest first. The cursor is the opaque value returned as
+    // "nextCursor" by the previous page (null for the first page).
+    public Map<String, Object> getFeedPage(int limit, String cursor, String viewerEmail)
+            throws ExecutionException, InterruptedException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+
+        Query query = firestore.collection("posts")
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+
+        if (cursor != null && !cursor.isBlank()) {
+            query = query.startAfter(PageCursor.decode(cursor));
+        }
+
+        // Fetch one extra document to know whether another page exists
+        List<QueryDocumentSnapshot> documents = query.limit(pageSize + 1).get().get().getDocuments();
+        boolean hasMore = documents.size() > pageSize;
+        if (hasMore) {
+            documents = documents.subList(0, pageSize);
+        }
+
+        List<Map<String, Object>> posts = toFeedPosts(documents);
+        attachLikedByViewer(posts, viewerEmail);
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("posts", posts);
+        page.put("nextCursor", hasMore ? PageCursor.encode(documents.get(documents.size() - 1), "createdAt") : null);
+        return page;
+    }
+
+    // ✅ One page of posts from the users the viewer follows, newest first. The cursor is the
+    // "nextCursor" of the previous page (null for the first page).
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getFollowingTimeline(String viewerEmail, int limit, String cursor)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> timeline = timelineService.getPage(viewerEmail, limit, cursor);
+        List<String> postIds = (List<String>) timeline.get("postIds");
+
+        // Posts deleted before deletePost retracted their entries are skipped
+        List<Map<String, Object>> posts = toFeedPosts(getPostDocuments(postIds));
+        attachLikedByViewer(posts, viewerEmail);
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("posts", posts);
+        page.put("nextCursor", timeline.get("nextCursor"));
+        return page;
+    }
+
+    public Map<String, Object> getTimelineStats() {
+        return timelineService.getStats();
+    }
+
+    // Attach author info (name, email, avatar) to each post document
+    private List<Map<String, Object>> toFeedPosts(List<? extends DocumentSnapshot> documents)
+            throws ExecutionException, InterruptedException {
         Set<String> uniqueAuthorIds = documents.stream()
                 .map(doc -> (String) doc.get("authorId"))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
 
-        Map<String, DocumentSnapshot> userDocsById = new HashMap<>();
-        for (String authorId : uniqueAuthorIds) {
-            List<QueryDocumentSnapshot> userQuery = firestore.collection("users")
-                    .whereEqualTo("id", authorId).limit(1).get().get().getDocuments();
-            if (!userQuery.isEmpty()) {
-                userDocsById.put(authorId, userQuery.get(0));
-            }
-        }
+        Map<String, DocumentSnapshot> userDocsById = userProfileResolver.resolveByIds(uniqueAuthorIds);
 
         List<Map<String, Object>> posts = new ArrayList<>();
-        for (QueryDocumentSnapshot doc : documents) {
+        for (DocumentSnapshot doc : documents) {
             Map<String, Object> post = doc.getData();
             post.put("id", doc.getId());
 
@@ -60,52 +149,157 @@ private EmailService emailService;
         return posts;
     }
 
-    // ✅ Like post
+    // ✅ Like post. Each user can like a post once; repeating the call does not count again.
     public long likePost(String postId, String likerEmail, String likerUsername) throws ExecutionException, InterruptedException {
         DocumentReference postRef = firestore.collection("posts").document(postId);
+        DocumentReference likerRef = postLikerIndex.likerRef(postId, likerEmail);
+        Map<String, Object> likerData = Map.of("email", likerEmail, "likedAt", FieldValue.serverTimestamp());
+
+        if (shardedLikeCounter.isSharded(postId)) {
+            Boolean added = firestore.runTransaction(transaction -> {
+                List<DocumentSnapshot> snapshots = transaction.getAll(postRef, likerRef).get();
+                if (snapshots.get(1).exists()) {
+                    return false;
+                }
+                if (!shardedLikeCounter.increment(transaction, snapshots.get(0), 1)) {
+                    return null; // switched back to the plain field
+                }
+                transaction.create(likerRef, likerData);
+                return true;
+            }).get();
+            if (added == null) {
+                shardedLikeCounter.unmarkSharded(postId);
+                return likePost(postId, likerEmail, likerUsername);
+            }
+            if (!added) {
+                return shardedLikeCounter.estimate(postId);
+            }
+            postLikerIndex.recordLike(postId, likerEmail);
+            likeNotificationOutbox.enqueue(shardedLikeCounter.getAuthorEmail(postId), postId, likerUsername);
+            return shardedLikeCounter.applied(postId, 1);
+        }
     
-        return firestore.runTransaction(transaction -> {
-            DocumentSnapshot snapshot = transaction.get(postRef).get();
+        // The transaction may retry, so only remember the outcome and notify once it has committed
+        DocumentSnapshot[] post = new DocumentSnapshot[1];
+        boolean[] added = new boolean[1];
+        long likes = firestore.runTransaction(transaction -> {
+            List<DocumentSnapshot> snapshots = transaction.getAll(postRef, likerRef).get();
+            DocumentSnapshot snapshot = snapshots.get(0);
     
             if (!snapshot.exists()) {
                 throw new IllegalArgumentException("Post not found");
             }
+            post[0] = snapshot;
+            added[0] = false;
+            if (snapshot.contains("likeShards")) {
+                return -1L; // switched to sharded counting (possibly by another instance)
+            }
     
             long currentLikes = snapshot.contains("likes") ? snapshot.getLong("likes") : 0;
+            if (snapshots.get(1).exists()) {
+                return currentLikes; // already liked by this user
+            }
             long updatedLikes = currentLikes + 1;
+            transaction.create(likerRef, likerData);
             transaction.update(postRef, "likes", updatedLikes);
-    
-            // Send email to the post author
-            String authorEmail = snapshot.getString("authorEmail");
-            if (authorEmail != null) {
-                emailService.sendEmail(
-                    authorEmail,
-                    likerUsername + " liked your post!",
-                    "\"" + likerUsername + "\" liked your post.\n\nCome back and see the engagement!"
-                );
-            }
-    
+            added[0] = true;
             return updatedLikes;
         }).get();
+
+        if (likes < 0) {
+            shardedLikeCounter.markSharded(postId, post[0]);
+            return likePost(postId, likerEmail, likerUsername);
+        }
+        if (added[0]) {
+            postTagIndex.updateLikes(postId, likes);
+            postLikerIndex.recordLike(postId, likerEmail);
+            shardedLikeCounter.recordWrite(postId);
+
+            // Queue the email to the post author; it is batched and sent in the background
+            likeNotificationOutbox.enqueue(post[0].getString("authorEmail"), postId, likerUsername);
+        }
+        return likes;
     }
     public long unlikePost(String postId, String unlikerEmail) throws ExecutionException, InterruptedException {
     DocumentReference postRef = firestore.collection("posts").document(postId);
+    DocumentReference likerRef = postLikerIndex.likerRef(postId, unlikerEmail);
+
+    if (shardedLikeCounter.isSharded(postId)) {
+        Boolean removed = firestore.runTransaction(transaction -> {
+            List<DocumentSnapshot> snapshots = transaction.getAll(postRef, likerRef).get();
+            if (!snapshots.get(1).exists()) {
+                return false;
+            }
+            if (!shardedLikeCounter.increment(transaction, snapshots.get(0), -1)) {
+                return null; // switched back to the plain field
+            }
+            transaction.delete(likerRef);
+            return true;
+        }).get();
+        if (removed == null) {
+            shardedLikeCounter.unmarkSharded(postId);
+            return unlikePost(postId, unlikerEmail);
+        }
+        return removed ? shardedLikeCounter.applied(postId, -1) : shardedLikeCounter.estimate(postId);
+    }
 
-    return firestore.runTransaction(transaction -> {
-        DocumentSnapshot snapshot = transaction.get(postRef).get();
+    DocumentSnapshot[] post = new DocumentSnapshot[1];
+    boolean[] removed = new boolean[1];
+    long likes = firestore.runTransaction(transaction -> {
+        List<DocumentSnapshot> snapshots = transaction.getAll(postRef, likerRef).get();
+        DocumentSnapshot snapshot = snapshots.get(0);
 
         if (!snapshot.exists()) {
             throw new IllegalArgumentException("Post not found");
         }
+        post[0] = snapshot;
+        removed[0] = false;
+        if (snapshot.contains("likeShards")) {
+            return -1L;
+        }
 
         long currentLikes = snapshot.contains("likes") ? snapshot.getLong("likes") : 0;
+        if (!snapshots.get(1).exists()) {
+            return currentLikes; // this user has not liked the post (legacy likes stay, see PostLikerIndex)
+        }
         long updatedLikes = currentLikes > 0 ? currentLikes - 1 : 0;
+        transaction.delete(likerRef);
         transaction.update(postRef, "likes", updatedLikes);
+        removed[0] = true;
 
         return updatedLikes;
     }).get();
+
+    if (likes < 0) {
+        shardedLikeCounter.markSharded(postId, post[0]);
+        return unlikePost(postId, unlikerEmail);
+    }
+    if (removed[0]) {
+        postTagIndex.updateLikes(postId, likes);
+        shardedLikeCounter.recordWrite(postId);
+    }
+    return likes;
 }
 
+    // ✅ Which of the given posts the viewer has liked
+    public Map<String, Boolean> hasLiked(String viewerEmail, List<String> postIds)
+            throws ExecutionException, InterruptedException {
+        return postLikerIndex.hasLiked(viewerEmail, postIds);
+    }
+
+    // Mark each post with whether the viewer liked it (no-op without a viewer)
+    private void attachLikedByViewer(List<Map<String, Object>> posts, String viewerEmail)
+            throws ExecutionException, InterruptedException {
+        if (viewerEmail == null || viewerEmail.isBlank() || posts.isEmpty()) {
+            return;
+        }
+        List<String> postIds = posts.stream().map(post -> (String) post.get("id")).collect(Collectors.toList());
+        Map<String, Boolean> liked = postLikerIndex.hasLiked(viewerEmail, postIds);
+        for (Map<String, Object> post : posts) {
+            post.put("likedByViewer", liked.getOrDefault((String) post.get("id"), false));
+        }
+    }
+
 
     // ✅ Add comment
     public void addComment(String postId, String commentEmail, String commentUser, String commentText)
@@ -116,12 +310,7 @@ private EmailService emailService;
     }
 
     // 🔍 Look up user by email
-    CollectionReference usersRef = firestore.collection("users");
-    Query query = usersRef.whereEqualTo("email", commentEmail);
-    ApiFuture<QuerySnapshot> querySnapshot = query.get();
-    List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
-
-    if (documents.isEmpty()) {
+    if (userRepository.getUserDocumentByEmail(commentEmail) == null) {
         throw new IllegalArgumentException("User with email " + commentEmail + " not found.");
     }
 
@@ -154,14 +343,7 @@ private EmailService emailService;
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
     
-        Map<String, DocumentSnapshot> userDocs = new HashMap<>();
-        for (String email : commentEmails) {
-            List<QueryDocumentSnapshot> users = firestore.collection("users")
-                    .whereEqualTo("email", email).limit(1).get().get().getDocuments();
-            if (!users.isEmpty()) {
-                userDocs.put(email, users.get(0));
-            }
-        }
+        Map<String, DocumentSnapshot> userDocs = userProfileResolver.resolveByEmails(commentEmails);
     
         return docs.stream().map(doc -> {
             Map<String, Object> data = doc.getData();
@@ -218,16 +400,21 @@ private EmailService emailService;
         postMap.put("learningGoals", post.getLearningGoals());
         postMap.put("skillLevel", post.getSkillLevel());
         postMap.put("competitionInvolvement", post.getCompetitionInvolvement());
-        postMap.put("createdAt", Timestamp.now());
+        Timestamp createdAt = Timestamp.now();
+        postMap.put("createdAt", createdAt);
 
         DocumentReference docRef = firestore.collection("posts").document();
         docRef.set(postMap).get();
         post.setId(docRef.getId());
+        postTagIndex.indexPost(docRef.getId(), postMap);
+        postSearchIndex.indexPost(docRef.getId(), postMap);
+        timelineService.fanOut(docRef.getId(), post.getAuthorEmail(), createdAt);
         return post;
     }
 
     // ✅ Get posts by author
-    public List<Map<String, Object>> getPostsByUser(String userId) throws ExecutionException, InterruptedException {
+    public List<Map<String, Object>> getPostsByUser(String userId, String viewerEmail)
+            throws ExecutionException, InterruptedException {
         List<QueryDocumentSnapshot> documents = firestore.collection("posts")
                 .whereEqualTo("authorId", userId)
                 .orderBy("createdAt", Query.Direction.DESCENDING)
@@ -249,37 +436,81 @@ private EmailService emailService;
             posts.add(post);
         }
 
+        attachLikedByViewer(posts, viewerEmail);
         return posts;
     }
 
     // ✅ Delete post
-    public void deletePost(String postId) throws ExecutionException, InterruptedException {
-        firestore.collection("posts").document(postId).delete().get();
+    public long deletePost(String postId) throws ExecutionException, InterruptedException {
+        DocumentReference postRef = firestore.collection("posts").document(postId);
+        String authorEmail = postRef.get().get().getString("authorEmail");
+        long deleted = bulkDeleter.deleteDocument(postRef, "comments", "likers", "likeShards");
+        timelineService.removePost(postId, authorEmail);
+        postTagIndex.removePost(postId);
+        postSearchIndex.removePost(postId);
+        postLikerIndex.removePost(postId);
+        return deleted;
     }
 
     // ✅ Update post content/tags
      public void updatePost(String postId, Map<String, Object> updates) throws ExecutionException, InterruptedException {
         updates.put("updatedAt", Timestamp.now());
-        firestore.collection("posts").document(postId).update(updates).get();
+        DocumentReference postRef = firestore.collection("posts").document(postId);
+        postRef.update(updates).get();
+
+        // Re-index from the stored document, since updates may only touch some fields
+        boolean tagsChanged = updates.keySet().stream().anyMatch(PostTagIndex.TAG_FIELDS::contains);
+        if (tagsChanged || updates.containsKey("content")) {
+            Map<String, Object> stored = postRef.get().get().getData();
+            if (tagsChanged) {
+                postTagIndex.indexPost(postId, stored);
+            }
+            postSearchIndex.indexPost(postId, stored);
+        }
     }
 
-    // ✅ Search by content (basic filter match)
-    public List<Map<String, Object>> searchPostsByKeyword(String keyword)
-            throws ExecutionException, InterruptedException {
-        List<Map<String, Object>> allPosts = getAllPosts();
-        return allPosts.stream()
-                .filter(post -> {
-                    Object content = post.get("content");
-                    return content != null && content.toString().toLowerCase().contains(keyword.toLowerCase());
-                })
-                .collect(Collectors.toList());
+    // ✅ Search content and tags through the full-text index, best match first
+    public boolean isSearchReady() {
+        return postSearchIndex.isReady();
+    }
+
+    public boolean isRecommendationReady() {
+        return postTagIndex.isReady();
+    }
+
+    public List<Map<String, Object>> searchPostsByKeyword(String keyword, int offset, int limit)
+            throws ExecutionException, InterruptedException, IOException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        int start = Math.max(0, Math.min(offset, MAX_PAGE_OFFSET));
+        List<String> postIds = postSearchIndex.search(keyword, start, pageSize);
+        return toFeedPosts(getPostDocuments(postIds));
+    }
+
+    // Fetch post documents by id in batched getAll calls, keeping the given order
+    private List<DocumentSnapshot> getPostDocuments(List<String> postIds) throws ExecutionException, InterruptedException {
+        List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+        for (int i = 0; i < postIds.size(); i += POST_BATCH_SIZE) {
+            DocumentReference[] refs = postIds.subList(i, Math.min(i + POST_BATCH_SIZE, postIds.size())).stream()
+                    .map(id -> firestore.collection("posts").document(id))
+                    .toArray(DocumentReference[]::new);
+            futures.add(firestore.getAll(refs));
+        }
+
+        List<DocumentSnapshot> documents = new ArrayList<>();
+        for (ApiFuture<List<DocumentSnapshot>> future : futures) {
+            for (DocumentSnapshot doc : future.get()) {
+                if (doc.exists()) {
+                    documents.add(doc);
+                }
+            }
+        }
+        return documents;
     }
 
     // ✅ Get profile image by ID
     private String getProfileImageByAuthorId(String authorId) throws ExecutionException, InterruptedException {
-        List<QueryDocumentSnapshot> docs = firestore.collection("users")
-                .whereEqualTo("id", authorId).limit(1).get().get().getDocuments();
-        return docs.isEmpty() ? null : docs.get(0).getString("profileImagePath");
+        DocumentSnapshot userDoc = userProfileResolver.resolveByIds(Collections.singleton(authorId)).get(authorId);
+        return userDoc == null ? null : userDoc.getString("profileImagePath");
     }
 
     // ✅ Get recommended posts by matching user preferences
@@ -293,21 +524,18 @@ private EmailService emailService;
         return new ArrayList<>();
     }
 
-    public List<Map<String, Object>> getRecommendedPosts(String userId)
+    public List<Map<String, Object>> getRecommendedPosts(String userId, int offset, int limit)
             throws ExecutionException, InterruptedException {
 
         System.out.println("Fetching recommended posts for userId: " + userId);
 
-        List<QueryDocumentSnapshot> userDocs = firestore.collection("users")
-                .whereEqualTo("id", userId).limit(1).get().get().getDocuments();
+        DocumentSnapshot userDoc = userProfileResolver.resolveByIds(Collections.singleton(userId)).get(userId);
 
-        if (userDocs.isEmpty()) {
+        if (userDoc == null) {
             System.out.println("❌ User not found in Firestore (by field id).");
             return Collections.emptyList();
         }
 
-        DocumentSnapshot userDoc = userDocs.get(0);
-
         List<String> preferences = safeList(userDoc.get("preferences"));
         System.out.println("✅ Preferences loaded: " + preferences);
 
@@ -316,61 +544,32 @@ private EmailService emailService;
             return Collections.emptyList();
         }
 
-        Set<String> lowerPrefs = preferences.stream()
-                .filter(Objects::nonNull)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        int start = Math.max(0, Math.min(offset, MAX_PAGE_OFFSET));
+        List<RecommendationScorer.ScoredPost> ranked = recommendationScorer.topPosts(preferences, start, pageSize);
 
-        List<QueryDocumentSnapshot> allPosts = firestore.collection("posts").get().get().getDocuments();
-        System.out.println("📦 Fetched posts: " + allPosts.size());
+        Map<String, Double> scoresById = new HashMap<>();
+        List<String> rankedIds = new ArrayList<>();
+        for (RecommendationScorer.ScoredPost scored : ranked) {
+            scoresById.put(scored.getPostId(), scored.getScore());
+            rankedIds.add(scored.getPostId());
+        }
 
         List<Map<String, Object>> recommendedPosts = new ArrayList<>();
         Set<String> authorIds = new HashSet<>();
 
-        for (QueryDocumentSnapshot doc : allPosts) {
-            List<String> combinedTags = new ArrayList<>();
-            combinedTags.addAll(safeList(doc.get("designDisciplines")));
-            combinedTags.addAll(safeList(doc.get("designProcess")));
-            combinedTags.addAll(safeList(doc.get("tools")));
-            combinedTags.addAll(safeList(doc.get("learningGoals")));
-            combinedTags.addAll(safeList(doc.get("competitionInvolvement")));
-
-            String skillLevel = doc.getString("skillLevel");
-            if (skillLevel != null) {
-                combinedTags.add(skillLevel);
-            }
-
-            Set<String> lowerTags = combinedTags.stream()
-                    .filter(Objects::nonNull)
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toSet());
-
-            boolean matches = lowerTags.stream().anyMatch(lowerPrefs::contains);
-
-            System.out.println("🔍 Post: " + doc.getId());
-            System.out.println("    Tags: " + lowerTags);
-            System.out.println("    Matches: " + matches);
-
-            if (matches) {
-                authorIds.add(doc.getString("authorId"));
-                Map<String, Object> postData = doc.getData();
-                postData.put("id", doc.getId());
-                recommendedPosts.add(postData);
-                System.out.println("✅ Added recommended post: " + doc.getId());
-            }
+        for (DocumentSnapshot doc : getPostDocuments(rankedIds)) {
+            authorIds.add(doc.getString("authorId"));
+            Map<String, Object> postData = doc.getData();
+            postData.put("id", doc.getId());
+            postData.put("score", scoresById.get(doc.getId()));
+            recommendedPosts.add(postData);
         }
 
         System.out.println("✅ Total recommended posts: " + recommendedPosts.size());
 
         // Fetch author avatars
-        Map<String, DocumentSnapshot> userDocsById = new HashMap<>();
-        for (String authorId : authorIds) {
-            List<QueryDocumentSnapshot> userQuery = firestore.collection("users")
-                    .whereEqualTo("id", authorId).limit(1).get().get().getDocuments();
-            if (!userQuery.isEmpty()) {
-                userDocsById.put(authorId, userQuery.get(0));
-            }
-        }
+        Map<String, DocumentSnapshot> userDocsById = userProfileResolver.resolveByIds(authorIds);
 
         // Add user info to post
         for (Map<String, Object> post : recommendedPosts) {
@@ -388,4 +587,20 @@ private EmailService emailService;
         return recommendedPosts;
     }
 
+    public Map<String, Object> getSearchIndexStats() {
+        return postSearchIndex.getStats();
+    }
+
+    public Map<String, Object> getTagIndexStats() {
+        return postTagIndex.getStats();
+    }
+
+    public Map<String, Object> getNotificationStats() {
+        return likeNotificationOutbox.getStats();
+    }
+
+    public Map<String, Object> getLikeShardingStats() {
+        return shardedLikeCounter.getStats();
+    }
+
 }
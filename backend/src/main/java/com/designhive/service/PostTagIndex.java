@@ -0,0 +1,410 @@
+package com.designhive.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory inverted index from post tag (lowercased) to the posts carrying it.
+// Post ids are interned to int ordinals so every posting list is a sorted int[].
+// Each post also keeps its createdAt and likes so matches can be scored without a read.
+// Built from Firestore once the application is ready, kept current by PostService on
+// create/update/delete, and rebuilt periodically to pick up other instances' writes.
+@Component
+public class PostTagIndex {
+
+    public static final List<String> TAG_FIELDS = List.of(
+            "designDisciplines", "designProcess", "tools", "learningGoals", "competitionInvolvement", "skillLevel");
+
+    private static final Logger logger = LoggerFactory.getLogger(PostTagIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final Firestore firestore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-tag-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long refreshMinutes;
+
+    private State state = new State();
+    private volatile boolean ready;
+    // Writes made while a rebuild is reading Firestore, replayed onto the new state
+    private List<Consumer<State>> replay;
+    private long lastRebuildMillis = -1;
+    private Date lastRebuiltAt;
+
+    @Autowired
+    public PostTagIndex(Firestore firestore, @Value("${tags.index.refresh-minutes:10}") long refreshMinutes) {
+        this.firestore = firestore;
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Failed to build post tag index", e);
+        }
+        if (refreshMinutes > 0) {
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.error("Failed to refresh post tag index", e);
+                }
+            }, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    // ✅ Re-read every post (tag fields only) and swap in a fresh index
+    public void rebuild() throws Exception {
+        long start = System.currentTimeMillis();
+        State fresh = new State();
+        lock.writeLock().lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<String> fields = new ArrayList<>(TAG_FIELDS);
+        fields.add("createdAt");
+        fields.add("likes");
+        Query base = firestore.collection("posts")
+                .select(fields.toArray(new String[0]))
+                .orderBy("createdAt")
+                .limit(REBUILD_PAGE_SIZE);
+
+        try {
+            DocumentSnapshot last = null;
+            while (true) {
+                Query page = last == null ? base : base.startAfter(last);
+                List<QueryDocumentSnapshot> docs = page.get().get().getDocuments();
+                for (QueryDocumentSnapshot doc : docs) {
+                    fresh.put(doc.getId(), toEntry(doc.getData()));
+                }
+                if (docs.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                last = docs.get(docs.size() - 1);
+            }
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            replay.forEach(write -> write.accept(fresh));
+            replay = null;
+            state = fresh;
+            ready = true;
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            lastRebuiltAt = new Date();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Post tag index rebuilt: {} posts, {} tags in {} ms",
+                fresh.postCount(), fresh.postings.size(), lastRebuildMillis);
+    }
+
+    // False until the first rebuild finishes; until then the index holds only this instance's writes
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ✅ Add or replace a post's tags. postData holds the raw Firestore fields.
+    public void indexPost(String postId, Map<String, Object> postData) {
+        PostEntry entry = toEntry(postData);
+        apply(current -> current.put(postId, entry));
+    }
+
+    public void removePost(String postId) {
+        apply(current -> current.remove(postId));
+    }
+
+    // ✅ Keep the cached like count in step with the post document
+    public void updateLikes(String postId, long likes) {
+        apply(current -> {
+            Integer ordinal = current.ordinals.get(postId);
+            if (ordinal != null) {
+                current.entries.get(ordinal).likes = likes;
+            }
+        });
+    }
+
+    // ✅ Ids of posts carrying at least one of the given tags, oldest first
+    public List<String> findPostIds(Collection<String> tags) {
+        List<String> postIds = new ArrayList<>();
+        forEachMatch(tags, (postId, postTags, createdAtMillis, likes) -> postIds.add(postId));
+        return postIds;
+    }
+
+    // ✅ Visit every post carrying at least one of the given tags, oldest first.
+    // Runs under the read lock, so the visitor must not call back into the index.
+    public void forEachMatch(Collection<String> tags, MatchVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            List<int[]> lists = new ArrayList<>();
+            for (String tag : normalize(tags)) {
+                IntPostingList postingList = state.postings.get(tag);
+                if (postingList != null) {
+                    lists.add(postingList.toArray());
+                }
+            }
+            for (int ordinal : union(lists)) {
+                PostEntry entry = state.entries.get(ordinal);
+                visitor.visit(state.postIds.get(ordinal), entry.tags, entry.createdAtMillis, entry.likes);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public interface MatchVisitor {
+        void visit(String postId, Map<String, List<String>> tagsByField, long createdAtMillis, long likes);
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            for (IntPostingList postingList : state.postings.values()) {
+                postings += postingList.size;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("posts", state.postCount());
+            stats.put("tags", state.postings.size());
+            stats.put("postings", postings);
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            stats.put("lastRebuiltAt", lastRebuiltAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private PostEntry toEntry(Map<String, Object> postData) {
+        PostEntry entry = new PostEntry();
+        entry.tags = extractTags(postData);
+        if (postData != null) {
+            Object createdAt = postData.get("createdAt");
+            if (createdAt instanceof Timestamp) {
+                entry.createdAtMillis = ((Timestamp) createdAt).toDate().getTime();
+            } else if (createdAt instanceof Date) {
+                entry.createdAtMillis = ((Date) createdAt).getTime();
+            }
+            Object likes = postData.get("likes");
+            if (likes instanceof Number) {
+                entry.likes = ((Number) likes).longValue();
+            }
+        }
+        return entry;
+    }
+
+    // Pull the six tag fields out of a post document, lowercased and de-duplicated per field
+    private Map<String, List<String>> extractTags(Map<String, Object> postData) {
+        Map<String, List<String>> tags = new HashMap<>();
+        if (postData == null) {
+            return tags;
+        }
+        for (String field : TAG_FIELDS) {
+            Object value = postData.get(field);
+            List<String> values = new ArrayList<>();
+            if (value instanceof List<?>) {
+                for (Object item : (List<?>) value) {
+                    if (item != null) {
+                        values.add(item.toString());
+                    }
+                }
+            } else if (value != null) {
+                values.add(value.toString());
+            }
+            List<String> normalized = normalize(values);
+            if (!normalized.isEmpty()) {
+                tags.put(field, normalized);
+            }
+        }
+        return tags;
+    }
+
+    private static List<String> normalize(Collection<String> tags) {
+        if (tags == null) {
+            return Collections.emptyList();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank()) {
+                normalized.add(tag.trim().toLowerCase());
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    // k-way merge of sorted, duplicate-free ordinal arrays
+    private static int[] union(List<int[]> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Comparator.comparingInt((int[] head) -> head[0]));
+        int total = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            int[] list = lists.get(i);
+            total += list.length;
+            if (list.length > 0) {
+                heads.add(new int[] { list[0], i, 0 });
+            }
+        }
+        int[] result = new int[total];
+        int size = 0;
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            if (size == 0 || result[size - 1] != head[0]) {
+                result[size++] = head[0];
+            }
+            int[] list = lists.get(head[1]);
+            int next = head[2] + 1;
+            if (next < list.length) {
+                heads.add(new int[] { list[next], head[1], next });
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Apply a write to the live state and, during a rebuild, remember it for the new one
+    private void apply(Consumer<State> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(state);
+            if (replay != null) {
+                replay.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static class State {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> postIds = new ArrayList<>();
+        private final Map<Integer, PostEntry> entries = new HashMap<>();
+        private final Map<String, IntPostingList> postings = new HashMap<>();
+
+        // New posts get the next ordinal, so they land at the end of their posting lists.
+        // A re-indexed post keeps its ordinal and only has its postings swapped.
+        private void put(String postId, PostEntry entry) {
+            Integer ordinal = ordinals.get(postId);
+            if (ordinal == null) {
+                ordinal = postIds.size();
+                postIds.add(postId);
+                ordinals.put(postId, ordinal);
+            } else {
+                removePostings(ordinal, entries.get(ordinal).tags);
+            }
+            entries.put(ordinal, entry);
+            for (String tag : distinctTags(entry.tags)) {
+                postings.computeIfAbsent(tag, key -> new IntPostingList()).add(ordinal);
+            }
+        }
+
+        private void remove(String postId) {
+            Integer ordinal = ordinals.remove(postId);
+            if (ordinal == null) {
+                return;
+            }
+            postIds.set(ordinal, null);
+            removePostings(ordinal, entries.remove(ordinal).tags);
+        }
+
+        private void removePostings(int ordinal, Map<String, List<String>> tags) {
+            for (String tag : distinctTags(tags)) {
+                IntPostingList postingList = postings.get(tag);
+                if (postingList != null && postingList.remove(ordinal) && postingList.size == 0) {
+                    postings.remove(tag);
+                }
+            }
+        }
+
+        private int postCount() {
+            return ordinals.size();
+        }
+
+        private static Set<String> distinctTags(Map<String, List<String>> tags) {
+            Set<String> distinct = new HashSet<>();
+            if (tags != null) {
+                tags.values().forEach(distinct::addAll);
+            }
+            return distinct;
+        }
+    }
+
+    private static class PostEntry {
+        private Map<String, List<String>> tags;
+        private long createdAtMillis;
+        private long likes;
+    }
+
+    // Growable sorted int array
+    private static class IntPostingList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        private boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.designhive.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Ranks posts matching a user's preferences. Each matched tag adds its field weight,
+// likes add a log-scaled bonus, and the total decays with post age. Only the best
+// (offset + limit) posts are kept, in a min-heap, so the candidate set is never sorted.
+@Component
+public class RecommendationScorer {
+
+    private static final Map<String, Double> FIELD_WEIGHTS = Map.of(
+            "designDisciplines", 3.0,
+            "tools", 2.0,
+            "skillLevel", 2.0,
+            "designProcess", 1.5,
+            "learningGoals", 1.5,
+            "competitionInvolvement", 1.0);
+
+    private static final double LIKE_WEIGHT = 0.5;
+    private static final double HALF_LIFE_DAYS = 14.0;
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000.0;
+
+    private final PostTagIndex postTagIndex;
+
+    @Autowired
+    public RecommendationScorer(PostTagIndex postTagIndex) {
+        this.postTagIndex = postTagIndex;
+    }
+
+    // ✅ Best-scoring post ids for the given preferences, highest score first
+    public List<ScoredPost> topPosts(Collection<String> preferences, int offset, int limit) {
+        Set<String> lowerPrefs = new HashSet<>();
+        for (String preference : preferences) {
+            if (preference != null) {
+                lowerPrefs.add(preference.trim().toLowerCase());
+            }
+        }
+
+        int capacity = offset + limit;
+        if (capacity <= 0) {
+            return Collections.emptyList();
+        }
+
+        long now = System.currentTimeMillis();
+        PriorityQueue<ScoredPost> heap = new PriorityQueue<>(capacity, Comparator.comparingDouble(ScoredPost::getScore));
+        postTagIndex.forEachMatch(lowerPrefs, (postId, tagsByField, createdAtMillis, likes) -> {
+            double score = score(lowerPrefs, tagsByField, createdAtMillis, likes, now);
+            if (heap.size() < capacity) {
+                heap.add(new ScoredPost(postId, score));
+            } else if (score > heap.peek().getScore()) {
+                heap.poll();
+                heap.add(new ScoredPost(postId, score));
+            }
+        });
+
+        List<ScoredPost> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(ScoredPost::getScore).reversed());
+        if (offset >= ranked.size()) {
+            return Collections.emptyList();
+        }
+        return ranked.subList(offset, ranked.size());
+    }
+
+    private double score(Set<String> lowerPrefs, Map<String, List<String>> tagsByField,
+                         long createdAtMillis, long likes, long now) {
+        double tagScore = 0;
+        for (Map.Entry<String, List<String>> field : tagsByField.entrySet()) {
+            double weight = FIELD_WEIGHTS.getOrDefault(field.getKey(), 1.0);
+            for (String tag : field.getValue()) {
+                if (lowerPrefs.contains(tag)) {
+                    tagScore += weight;
+                }
+            }
+        }
+
+        double likeScore = LIKE_WEIGHT * Math.log1p(Math.max(0, likes));
+        double ageDays = Math.max(0, now - createdAtMillis) / MILLIS_PER_DAY;
+        double decay = Math.pow(0.5, ageDays / HALF_LIFE_DAYS);
+        return (tagScore + likeScore) * decay;
+    }
+
+    public static class ScoredPost {
+        private final String postId;
+        private final double score;
+
+        public ScoredPost(String postId, double score) {
+            this.postId = postId;
+            this.score = score;
+        }
+
+        public String getPostId() { return postId; }
+        public double getScore() { return score; }
+    }
+}
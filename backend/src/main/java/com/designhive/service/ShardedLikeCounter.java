@@ -0,0 +1,307 @@
+package com.designhive.service;
+
+import com.google.cloud.firestore.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Like counting for hot posts. A post starts with a plain "likes" field updated in a
+// transaction. Once it receives more than the threshold of likes within a window it is
+// switched to sharded mode: "likeShards" is set on the post and likes become blind
+// FieldValue.increment writes on posts/{id}/likeShards/{n}. A background job folds the
+// shards back into "likes" (likesBase + sum of shards), so readers keep using "likes".
+// Only the instance holding the aggregator lease folds shards; it finds sharded posts with a
+// query, and a post whose shards have not been written for the idle period is switched back
+// to the plain field. Other instances forget posts they have not liked for that long.
+@Service
+public class ShardedLikeCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedLikeCounter.class);
+    private static final String SHARDS = "likeShards";
+    private static final String LEASE = "likeShardAggregator";
+
+    private final Firestore firestore;
+    private final PostTagIndex postTagIndex;
+    private final JobLease jobLease;
+    private final int shardCount;
+    private final int threshold;
+    private final long windowMillis;
+    private final long aggregateMillis;
+    private final long idleMillis;
+
+    private final Map<String, RateWindow> rates = new ConcurrentHashMap<>();
+    private final Map<String, ShardState> shardedPosts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService aggregator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "like-shard-aggregator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ShardedLikeCounter(Firestore firestore, PostTagIndex postTagIndex, JobLease jobLease,
+                              @Value("${likes.sharding.shards:10}") int shardCount,
+                              @Value("${likes.sharding.threshold:20}") int threshold,
+                              @Value("${likes.sharding.window-seconds:10}") long windowSeconds,
+                              @Value("${likes.sharding.aggregate-seconds:5}") long aggregateSeconds,
+                              @Value("${likes.sharding.idle-seconds:300}") long idleSeconds) {
+        this.firestore = firestore;
+        this.postTagIndex = postTagIndex;
+        this.jobLease = jobLease;
+        this.shardCount = shardCount;
+        this.threshold = threshold;
+        this.windowMillis = windowSeconds * 1000;
+        this.aggregateMillis = aggregateSeconds * 1000;
+        this.idleMillis = idleSeconds * 1000;
+        aggregator.scheduleWithFixedDelay(this::aggregateAll, aggregateSeconds, aggregateSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isSharded(String postId) {
+        return shardedPosts.containsKey(postId);
+    }
+
+    public String getAuthorEmail(String postId) {
+        ShardState state = shardedPosts.get(postId);
+        return state == null ? null : state.authorEmail;
+    }
+
+    // ✅ Remember a post found to be sharded already (e.g. switched by another instance)
+    public void markSharded(String postId, DocumentSnapshot post) {
+        shardedPosts.computeIfAbsent(postId, id -> new ShardState(
+                post.getString("authorEmail"),
+                post.contains("likes") ? post.getLong("likes") : 0));
+    }
+
+    // ✅ Add a blind increment (delta +1 or -1) on a random shard to the given transaction.
+    // The post must have been read in the same transaction: a missing post is rejected, and
+    // false means it has been switched back to the plain field, so the caller counts there.
+    public boolean increment(Transaction transaction, DocumentSnapshot post, long delta) {
+        if (!post.exists()) {
+            throw new IllegalArgumentException("Post not found");
+        }
+        if (!post.contains(SHARDS)) {
+            return false;
+        }
+        int shard = ThreadLocalRandom.current().nextInt(shardCount);
+        DocumentReference shardRef = post.getReference().collection(SHARDS).document(Integer.toString(shard));
+        transaction.set(shardRef, Map.of("count", FieldValue.increment(delta)), SetOptions.merge());
+        return true;
+    }
+
+    // ✅ Stop treating the post as sharded on this instance (it was switched back meanwhile)
+    public void unmarkSharded(String postId) {
+        shardedPosts.remove(postId);
+    }
+
+    // ✅ Note a committed shard increment; returns the estimated total
+    public long applied(String postId, long delta) {
+        ShardState state = shardedPosts.get(postId);
+        if (state == null) {
+            return 0; // forgotten as idle in between; the next aggregation has the real count
+        }
+        if (delta != 0) {
+            state.lastWriteAt = System.currentTimeMillis();
+        }
+        return Math.max(0, state.aggregatedLikes + state.pendingDelta.addAndGet(delta));
+    }
+
+    public long estimate(String postId) {
+        return applied(postId, 0);
+    }
+
+    // ✅ Count a transactional like/unlike and switch the post to sharded mode if it is running hot
+    public void recordWrite(String postId) {
+        RateWindow window = rates.computeIfAbsent(postId, id -> new RateWindow());
+        if (window.hit(System.currentTimeMillis(), windowMillis) <= threshold) {
+            return;
+        }
+        rates.remove(postId);
+        try {
+            enableSharding(postId);
+        } catch (Exception e) {
+            logger.error("Failed to enable sharded likes for post {}", postId, e);
+        }
+    }
+
+    private void enableSharding(String postId) throws ExecutionException, InterruptedException {
+        DocumentReference postRef = firestore.collection("posts").document(postId);
+        DocumentSnapshot post = firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(postRef).get();
+            if (snapshot.exists() && !snapshot.contains(SHARDS)) {
+                long likes = snapshot.contains("likes") ? snapshot.getLong("likes") : 0;
+                transaction.update(postRef, SHARDS, shardCount, "likesBase", likes);
+            }
+            return snapshot;
+        }).get();
+        if (post.exists()) {
+            markSharded(postId, post);
+            logger.info("Post {} switched to {} like shards", postId, shardCount);
+        }
+    }
+
+    private void aggregateAll() {
+        long now = System.currentTimeMillis();
+        rates.values().removeIf(window -> window.isStale(now, windowMillis));
+        shardedPosts.values().removeIf(state -> now - state.lastWriteAt > idleMillis);
+        try {
+            if (jobLease.tryAcquire(LEASE, aggregateMillis * 3)) {
+                foldAll(now);
+            } else {
+                refreshLocal();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to aggregate like shards", e);
+        }
+    }
+
+    // Lease holder: fold the shards of every sharded post, whichever instance wrote them
+    private void foldAll(long now) throws ExecutionException, InterruptedException {
+        for (QueryDocumentSnapshot post : firestore.collection("posts")
+                .whereGreaterThan(SHARDS, 0)
+                .select("likes", "likesBase", SHARDS)
+                .get().get().getDocuments()) {
+            try {
+                aggregate(post, now);
+            } catch (Exception e) {
+                logger.error("Failed to aggregate like shards for post {}", post.getId(), e);
+            }
+        }
+    }
+
+    // Fold the shard counts into the post's "likes" field, or switch an idle post back
+    private void aggregate(DocumentSnapshot post, long now) throws ExecutionException, InterruptedException {
+        String postId = post.getId();
+        ShardState state = shardedPosts.get(postId);
+        long pendingBefore = state == null ? 0 : state.pendingDelta.get();
+
+        long total = post.contains("likesBase") ? post.getLong("likesBase") : 0;
+        // A post just switched over has no shards yet; count from its own last write then
+        long lastShardWrite = post.getUpdateTime() == null ? now : post.getUpdateTime().toDate().getTime();
+        for (QueryDocumentSnapshot shard : post.getReference().collection(SHARDS).get().get().getDocuments()) {
+            Long count = shard.getLong("count");
+            total += count == null ? 0 : count;
+            lastShardWrite = Math.max(lastShardWrite, shard.getUpdateTime().toDate().getTime());
+        }
+        total = Math.max(0, total);
+
+        if (now - lastShardWrite > idleMillis) {
+            Long folded = demote(post.getReference());
+            shardedPosts.remove(postId);
+            if (folded != null) {
+                postTagIndex.updateLikes(postId, folded);
+                logger.info("Post {} switched back to a plain like count after {} s idle", postId, idleMillis / 1000);
+            }
+            return;
+        }
+
+        Long stored = post.getLong("likes");
+        if (stored == null || stored != total) {
+            post.getReference().update("likes", total).get();
+        }
+        if (state != null) {
+            state.aggregatedLikes = total;
+            state.pendingDelta.addAndGet(-pendingBefore);
+        }
+        postTagIndex.updateLikes(postId, total);
+    }
+
+    // Fold the shards into "likes" and drop them, in one transaction with the post; a like
+    // committing at the same time either lands in a shard first or sees the plain field
+    private Long demote(DocumentReference postRef) throws ExecutionException, InterruptedException {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot post = transaction.get(postRef).get();
+            if (!post.exists() || !post.contains(SHARDS)) {
+                return null;
+            }
+            List<QueryDocumentSnapshot> shards = transaction.get(postRef.collection(SHARDS)).get().getDocuments();
+            long total = post.contains("likesBase") ? post.getLong("likesBase") : 0;
+            for (QueryDocumentSnapshot shard : shards) {
+                Long count = shard.getLong("count");
+                total += count == null ? 0 : count;
+            }
+            total = Math.max(0, total);
+            transaction.update(postRef, "likes", total, SHARDS, FieldValue.delete(), "likesBase", FieldValue.delete());
+            shards.forEach(shard -> transaction.delete(shard.getReference()));
+            return total;
+        }).get();
+    }
+
+    // Other instances: refresh the estimate of posts liked here from the folded "likes"
+    private void refreshLocal() throws ExecutionException, InterruptedException {
+        if (shardedPosts.isEmpty()) {
+            return;
+        }
+        Map<String, Long> pendingBefore = new HashMap<>();
+        shardedPosts.forEach((postId, state) -> pendingBefore.put(postId, state.pendingDelta.get()));
+        DocumentReference[] refs = pendingBefore.keySet().stream()
+                .map(postId -> firestore.collection("posts").document(postId))
+                .toArray(DocumentReference[]::new);
+        for (DocumentSnapshot post : firestore.getAll(refs).get()) {
+            ShardState state = shardedPosts.get(post.getId());
+            if (state == null) {
+                continue;
+            }
+            if (!post.exists() || !post.contains(SHARDS)) {
+                shardedPosts.remove(post.getId());
+                continue;
+            }
+            long likes = post.contains("likes") ? post.getLong("likes") : 0;
+            state.aggregatedLikes = likes;
+            state.pendingDelta.addAndGet(-pendingBefore.get(post.getId()));
+            postTagIndex.updateLikes(post.getId(), likes);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shardedPosts", shardedPosts.size());
+        stats.put("trackedPosts", rates.size());
+        stats.put("shardCount", shardCount);
+        stats.put("threshold", threshold);
+        stats.put("windowSeconds", windowMillis / 1000);
+        stats.put("idleSeconds", idleMillis / 1000);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregator.shutdown();
+        jobLease.release(LEASE);
+    }
+
+    private static class ShardState {
+        private final String authorEmail;
+        private volatile long aggregatedLikes;
+        private volatile long lastWriteAt = System.currentTimeMillis();
+        private final AtomicLong pendingDelta = new AtomicLong();
+
+        private ShardState(String authorEmail, long aggregatedLikes) {
+            this.authorEmail = authorEmail;
+            this.aggregatedLikes = aggregatedLikes;
+        }
+    }
+
+    // Like count within the current fixed window
+    private static class RateWindow {
+        private long windowStart;
+        private int count;
+
+        private synchronized int hit(long now, long windowMillis) {
+            if (now - windowStart > windowMillis) {
+                windowStart = now;
+                count = 0;
+            }
+            return ++count;
+        }
+
+        private synchronized boolean isStale(long now, long windowMillis) {
+            return now - windowStart > windowMillis;
+        }
+    }
+}
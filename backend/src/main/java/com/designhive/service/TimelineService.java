@@ -0,0 +1,327 @@
+package com.designhive.service;
+
+import com.designhive.entity.FollowRequest;
+import com.designhive.repository.FollowGraph;
+import com.designhive.repository.FollowRepository;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// "Following" timeline. When a post is created its id is copied into the timeline of every
+// follower (timelines/{email}/entries/{postId}), so reading a timeline is one bounded query.
+// Authors with more followers than the fan-out limit are skipped on write; their posts are
+// queried directly at read time and merged in. Timelines are trimmed to the newest entries,
+// and a deleted post is taken back out of the timelines it was copied into.
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final int MAX_TIMELINE_PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 500;
+    private static final int WHERE_IN_LIMIT = 30;
+    private static final int TRIM_EVERY = 50;
+
+    private final Firestore firestore;
+    private final FollowGraph followGraph;
+    private final FollowRepository followRepository;
+    private final int fanoutLimit;
+    private final int maxEntries;
+
+    private final ExecutorService fanout = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "timeline-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong fanouts = new AtomicLong();
+    private final AtomicLong entriesWritten = new AtomicLong();
+    private final AtomicLong skippedHighFollower = new AtomicLong();
+    private final AtomicLong trimmedEntries = new AtomicLong();
+    private final AtomicLong retractions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public TimelineService(Firestore firestore, FollowGraph followGraph, FollowRepository followRepository,
+                           @Value("${timeline.fanout-limit:1000}") int fanoutLimit,
+                           @Value("${timeline.max-entries:500}") int maxEntries) {
+        this.firestore = firestore;
+        this.followGraph = followGraph;
+        this.followRepository = followRepository;
+        this.fanoutLimit = fanoutLimit;
+        this.maxEntries = maxEntries;
+    }
+
+    // ✅ Copy a new post into its author's followers' timelines (in the background)
+    public void fanOut(String postId, String authorEmail, Timestamp createdAt) {
+        if (authorEmail == null) {
+            return;
+        }
+        fanout.execute(() -> {
+            try {
+                deliver(postId, authorEmail, createdAt);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                logger.error("Failed to fan out post {} from {}", postId, authorEmail, e);
+            }
+        });
+    }
+
+    // ✅ Take a deleted post out of its author's followers' timelines (in the background)
+    public void removePost(String postId, String authorEmail) {
+        if (authorEmail == null) {
+            return;
+        }
+        fanout.execute(() -> {
+            try {
+                retract(postId, authorEmail);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                logger.error("Failed to remove post {} from {}'s followers' timelines", postId, authorEmail, e);
+            }
+        });
+    }
+
+    // ✅ One page of post ids from followed users, newest first. Returns { postIds, nextCursor }.
+    public Map<String, Object> getPage(String viewerEmail, int limit, String cursor)
+            throws ExecutionException, InterruptedException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_TIMELINE_PAGE_SIZE));
+        Object[] position = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+
+        Set<String> following = new HashSet<>(followingOf(viewerEmail));
+        List<String> highFollowerAuthors = new ArrayList<>();
+        for (String author : following) {
+            if (isHighFollower(author)) {
+                highFollowerAuthors.add(author);
+            }
+        }
+
+        // Each source returns at most pageSize + 1 rows, newest first
+        List<ApiFuture<QuerySnapshot>> sources = new ArrayList<>();
+        if (!viewerEmail.contains("/")) {
+            sources.add(page(entries(viewerEmail), position, pageSize).get());
+        }
+        for (int i = 0; i < highFollowerAuthors.size(); i += WHERE_IN_LIMIT) {
+            Query posts = firestore.collection("posts")
+                    .whereIn("authorEmail", highFollowerAuthors.subList(i, Math.min(i + WHERE_IN_LIMIT, highFollowerAuthors.size())))
+                    .select("authorEmail", "createdAt");
+            sources.add(page(posts, position, pageSize).get());
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (ApiFuture<QuerySnapshot> source : sources) {
+            List<QueryDocumentSnapshot> rows = source.get().getDocuments();
+            for (int i = 0; i < rows.size(); i++) {
+                QueryDocumentSnapshot row = rows.get(i);
+                boolean keep = following.contains(row.getString("authorEmail"));
+                candidates.add(new Candidate(row, keep, i == pageSize));
+            }
+        }
+        candidates.sort(Comparator.comparing((Candidate c) -> c.createdAt).reversed()
+                .thenComparing(c -> c.doc.getId(), Comparator.reverseOrder()));
+
+        // A source's extra row marks how far its results can be trusted; stop there
+        List<String> postIds = new ArrayList<>();
+        DocumentSnapshot last = null;
+        boolean more = false;
+        String previousId = null;
+        for (Candidate candidate : candidates) {
+            if (candidate.doc.getId().equals(previousId)) {
+                continue;
+            }
+            if (candidate.boundary || postIds.size() == pageSize) {
+                more = true;
+                break;
+            }
+            previousId = candidate.doc.getId();
+            last = candidate.doc;
+            if (candidate.keep) {
+                postIds.add(candidate.doc.getId());
+            }
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("postIds", postIds);
+        page.put("nextCursor", more && last != null ? PageCursor.encode(last, "createdAt") : null);
+        return page;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fanouts", fanouts.get());
+        stats.put("entriesWritten", entriesWritten.get());
+        stats.put("skippedHighFollower", skippedHighFollower.get());
+        stats.put("trimmedEntries", trimmedEntries.get());
+        stats.put("retractions", retractions.get());
+        stats.put("failures", failures.get());
+        stats.put("fanoutLimit", fanoutLimit);
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    private void deliver(String postId, String authorEmail, Timestamp createdAt) throws Exception {
+        List<String> followers = followersOf(authorEmail);
+        if (followers.size() > fanoutLimit) {
+            skippedHighFollower.incrementAndGet();
+            return;
+        }
+
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("authorEmail", authorEmail);
+        entry.put("createdAt", createdAt);
+
+        WriteBatch batch = firestore.batch();
+        int pending = 0;
+        List<String> toTrim = new ArrayList<>();
+        for (String follower : followers) {
+            if (follower.contains("/")) {
+                continue;
+            }
+            batch.set(entries(follower).document(postId), entry);
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                entriesWritten.addAndGet(pending);
+                batch = firestore.batch();
+                pending = 0;
+            }
+            // Trim about every TRIM_EVERY writes to a timeline, without keeping a count per follower
+            if (ThreadLocalRandom.current().nextInt(TRIM_EVERY) == 0) {
+                toTrim.add(follower);
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+            entriesWritten.addAndGet(pending);
+        }
+        fanouts.incrementAndGet();
+
+        for (String follower : toTrim) {
+            trim(follower);
+        }
+    }
+
+    // Entries that were never written (high-follower author, trimmed) make harmless deletes
+    private void retract(String postId, String authorEmail) throws Exception {
+        List<String> followers = followersOf(authorEmail);
+        if (followers.size() > fanoutLimit) {
+            return;
+        }
+        WriteBatch batch = firestore.batch();
+        int pending = 0;
+        for (String follower : followers) {
+            if (follower.contains("/")) {
+                continue;
+            }
+            batch.delete(entries(follower).document(postId));
+            if (++pending == BATCH_SIZE) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+        }
+        retractions.incrementAndGet();
+    }
+
+    // Delete everything past the newest maxEntries. A count (one read per 1000 entries) says how
+    // many are stale; only those are read, oldest first, instead of skipping past the newest ones.
+    private void trim(String email) throws ExecutionException, InterruptedException {
+        long stale = entries(email).count().get().get().getCount() - maxEntries;
+        DocumentSnapshot cursor = null;
+        while (stale > 0) {
+            Query oldest = entries(email)
+                    .orderBy("createdAt", Query.Direction.ASCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.ASCENDING)
+                    .limit((int) Math.min(stale, BATCH_SIZE))
+                    .select(FieldPath.documentId());
+            if (cursor != null) {
+                oldest = oldest.startAfter(cursor);
+            }
+            List<QueryDocumentSnapshot> docs = oldest.get().get().getDocuments();
+            if (docs.isEmpty()) {
+                return;
+            }
+            WriteBatch batch = firestore.batch();
+            docs.forEach(doc -> batch.delete(doc.getReference()));
+            batch.commit().get();
+            trimmedEntries.addAndGet(docs.size());
+            stale -= docs.size();
+            cursor = docs.get(docs.size() - 1);
+        }
+    }
+
+    private Query page(Query query, Object[] position, int pageSize) {
+        Query ordered = query.orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (position != null) {
+            ordered = ordered.startAfter(position);
+        }
+        return ordered.limit(pageSize + 1);
+    }
+
+    private CollectionReference entries(String email) {
+        return firestore.collection("timelines").document(email).collection("entries");
+    }
+
+    // Until the graph has loaded, the follower counter on the user document decides
+    private boolean isHighFollower(String email) throws ExecutionException, InterruptedException {
+        if (followGraph.isReady()) {
+            return followGraph.getFollowerCount(email) > fanoutLimit;
+        }
+        return !email.contains("/") && followRepository.getFollowCounts(email).get("followers") > fanoutLimit;
+    }
+
+    private List<String> followersOf(String email) throws ExecutionException, InterruptedException {
+        if (followGraph.isReady()) {
+            return followGraph.getFollowerEmails(email);
+        }
+        List<String> followers = new ArrayList<>();
+        for (FollowRequest request : followRepository.getFollowers(email)) {
+            followers.add(request.getSenderEmail());
+        }
+        return followers;
+    }
+
+    private List<String> followingOf(String email) throws ExecutionException, InterruptedException {
+        if (followGraph.isReady()) {
+            return followGraph.getFollowingEmails(email);
+        }
+        List<String> following = new ArrayList<>();
+        for (FollowRequest request : followRepository.getFollowing(email)) {
+            following.add(request.getReceiverEmail());
+        }
+        return following;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdown();
+    }
+
+    private static class Candidate {
+        private final DocumentSnapshot doc;
+        private final Timestamp createdAt;
+        private final boolean keep;
+        private final boolean boundary;
+
+        private Candidate(DocumentSnapshot doc, boolean keep, boolean boundary) {
+            this.doc = doc;
+            Timestamp createdAt = doc.getTimestamp("createdAt");
+            this.createdAt = createdAt == null ? Timestamp.ofTimeSecondsAndNanos(0, 0) : createdAt;
+            this.keep = keep;
+            this.boundary = boundary;
+        }
+    }
+}
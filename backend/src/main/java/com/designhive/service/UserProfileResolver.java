@@ -0,0 +1,126 @@
+package com.designhive.service;
+
+import com.designhive.repository.UserProfileCache;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+// Resolves many user profiles at once instead of one Firestore query per user.
+// Profiles already in the UserProfileCache are served from memory; the rest are fetched in
+// batches that are all issued up front so they run concurrently, then collected.
+@Service
+public class UserProfileResolver {
+
+    // Firestore allows at most 30 values in a single "in" filter
+    private static final int WHERE_IN_LIMIT = 30;
+    private static final int GET_ALL_LIMIT = 100;
+
+    private final Firestore firestore;
+    private final UserProfileCache userProfileCache;
+
+    @Autowired
+    public UserProfileResolver(Firestore firestore, UserProfileCache userProfileCache) {
+        this.firestore = firestore;
+        this.userProfileCache = userProfileCache;
+    }
+
+    // ✅ Look up users by their "id" field, keyed by id
+    public Map<String, DocumentSnapshot> resolveByIds(Collection<String> userIds)
+            throws ExecutionException, InterruptedException {
+        Map<String, DocumentSnapshot> usersById = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (String id : distinct(userIds)) {
+            DocumentSnapshot cached = userProfileCache.getById(id);
+            if (cached != null) {
+                usersById.put(id, cached);
+            } else {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return usersById;
+        }
+
+        long loadGeneration = userProfileCache.loadGeneration();
+        List<ApiFuture<QuerySnapshot>> futures = new ArrayList<>();
+        for (List<String> chunk : chunks(ids, WHERE_IN_LIMIT)) {
+            futures.add(firestore.collection("users").whereIn("id", new ArrayList<>(chunk)).get());
+        }
+
+        for (ApiFuture<QuerySnapshot> future : futures) {
+            for (QueryDocumentSnapshot doc : future.get().getDocuments()) {
+                String id = doc.getString("id");
+                if (id != null) {
+                    usersById.putIfAbsent(id, doc);
+                    userProfileCache.put(doc, loadGeneration);
+                }
+            }
+        }
+        return usersById;
+    }
+
+    // ✅ Look up users by email (the users collection is keyed by email), keyed by email
+    public Map<String, DocumentSnapshot> resolveByEmails(Collection<String> emails)
+            throws ExecutionException, InterruptedException {
+        // Document ids cannot contain '/', so such keys can never match
+        Map<String, DocumentSnapshot> usersByEmail = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (String email : distinct(emails)) {
+            if (email.contains("/")) {
+                continue;
+            }
+            DocumentSnapshot cached = userProfileCache.getByEmail(email);
+            if (cached != null) {
+                usersByEmail.put(email, cached);
+            } else {
+                keys.add(email);
+            }
+        }
+        if (keys.isEmpty()) {
+            return usersByEmail;
+        }
+
+        long loadGeneration = userProfileCache.loadGeneration();
+        List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+        for (List<String> chunk : chunks(keys, GET_ALL_LIMIT)) {
+            DocumentReference[] refs = chunk.stream()
+                    .map(email -> firestore.collection("users").document(email))
+                    .toArray(DocumentReference[]::new);
+            futures.add(firestore.getAll(refs));
+        }
+
+        for (ApiFuture<List<DocumentSnapshot>> future : futures) {
+            for (DocumentSnapshot doc : future.get()) {
+                if (doc.exists()) {
+                    usersByEmail.put(doc.getId(), doc);
+                    userProfileCache.put(doc, loadGeneration);
+                }
+            }
+        }
+        return usersByEmail;
+    }
+
+    private List<String> distinct(Collection<String> values) {
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .filter(value -> !value.isBlank())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private List<List<String>> chunks(List<String> values, int size) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += size) {
+            chunks.add(values.subList(i, Math.min(i + size, values.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,67 @@
+package com.designhive.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    @Test
+    void verifiedTokensAreServedFromTheCache() {
+        JwtUtil jwtUtil = new JwtUtil(10);
+        String token = jwtUtil.generateToken("a@x.com");
+
+        Claims first = jwtUtil.getClaims(token);
+        Claims second = jwtUtil.getClaims(token);
+
+        assertEquals("a@x.com", first.getSubject());
+        assertSame(first, second);
+        assertEquals(1L, jwtUtil.getCacheStats().get("cacheMisses"));
+        assertEquals(1L, jwtUtil.getCacheStats().get("cacheHits"));
+    }
+
+    @Test
+    void cachedTokenStopsWorkingWhenItExpires() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil(10);
+        // JWT expiry has second precision, so expire on a whole second just ahead
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = Jwts.builder()
+                .setSubject("a@x.com")
+                .setExpiration(new Date(expiresAt))
+                .signWith(jwtUtil.getKey(), SignatureAlgorithm.HS256)
+                .compact();
+        assertEquals("a@x.com", jwtUtil.extractUsername(token));
+
+        Thread.sleep(expiresAt - System.currentTimeMillis() + 50);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.getClaims(token));
+        assertEquals(1L, jwtUtil.getCacheStats().get("expiredEvictions"));
+        assertEquals(0L, jwtUtil.getCacheStats().get("cachedTokens"));
+    }
+
+    @Test
+    void cacheIsBoundedByMaxEntries() {
+        JwtUtil jwtUtil = new JwtUtil(2);
+        for (int i = 0; i < 5; i++) {
+            jwtUtil.getClaims(jwtUtil.generateToken("user" + i + "@x.com"));
+        }
+
+        assertTrue((Long) jwtUtil.getCacheStats().get("cachedTokens") <= 2);
+    }
+
+    @Test
+    void disabledCacheStillVerifies() {
+        JwtUtil jwtUtil = new JwtUtil(0);
+        String token = jwtUtil.generateToken("a@x.com");
+
+        assertEquals("a@x.com", jwtUtil.extractUsername(token));
+        assertEquals("a@x.com", jwtUtil.extractUsername(token));
+        assertEquals(0L, jwtUtil.getCacheStats().get("cacheHits"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.designhive.repository;
+
+import com.designhive.entity.FollowRequest;
+import com.google.cloud.firestore.Firestore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class FollowGraphTest {
+
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FollowGraph(mock(Firestore.class), 0);
+    }
+
+    @Test
+    void pendingRequestBecomesAcceptedFollow() {
+        graph.addPending("r1", "a@x.com", "b@x.com");
+        assertEquals(FollowGraph.PENDING, graph.getStatus("a@x.com", "b@x.com"));
+        assertEquals(1, graph.getPendingSent("a@x.com").size());
+        assertEquals(1, graph.getPendingReceived("b@x.com").size());
+        assertEquals(0, graph.getFollowerCount("b@x.com"));
+
+        graph.accept("r1", "a@x.com", "b@x.com");
+
+        assertEquals(FollowGraph.ACCEPTED, graph.getStatus("a@x.com", "b@x.com"));
+        assertNull(graph.getStatus("b@x.com", "a@x.com"));
+        assertTrue(graph.getPendingSent("a@x.com").isEmpty());
+        assertEquals(1, graph.getFollowerCount("b@x.com"));
+        assertEquals(1, graph.getFollowingCount("a@x.com"));
+
+        List<FollowRequest> followers = graph.getFollowers("b@x.com");
+        assertEquals(1, followers.size());
+        assertEquals("r1", followers.get(0).getId());
+        assertEquals("a@x.com", followers.get(0).getSenderEmail());
+        assertEquals(FollowGraph.ACCEPTED, followers.get(0).getStatus());
+    }
+
+    @Test
+    void addingAnEdgeTwiceKeepsOneCopy() {
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.accept("r1", "a@x.com", "b@x.com");
+
+        assertEquals(1, graph.getFollowerCount("b@x.com"));
+        assertEquals(List.of("a@x.com"), graph.getFollowerEmails("b@x.com"));
+    }
+
+    @Test
+    void removingEdgesUpdatesBothSides() {
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.accept("r2", "c@x.com", "b@x.com");
+        graph.addPending("r3", "b@x.com", "c@x.com");
+
+        graph.removeAccepted("a@x.com", "b@x.com");
+        graph.removePending("b@x.com", "c@x.com");
+
+        assertEquals(List.of("c@x.com"), graph.getFollowerEmails("b@x.com"));
+        assertTrue(graph.getFollowingEmails("a@x.com").isEmpty());
+        assertTrue(graph.getPendingReceived("c@x.com").isEmpty());
+        // Removing an edge that is not there is a no-op
+        graph.removeAccepted("a@x.com", "nobody@x.com");
+        assertEquals(1, graph.getFollowerCount("b@x.com"));
+    }
+
+    @Test
+    void removeUserDropsEveryEdgeTouchingThem() {
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.accept("r2", "b@x.com", "c@x.com");
+        graph.addPending("r3", "c@x.com", "b@x.com");
+        graph.addPending("r4", "b@x.com", "d@x.com");
+
+        graph.removeUser("b@x.com");
+
+        assertEquals(0, graph.getFollowingCount("a@x.com"));
+        assertEquals(0, graph.getFollowerCount("c@x.com"));
+        assertTrue(graph.getPendingSent("c@x.com").isEmpty());
+        assertTrue(graph.getPendingReceived("d@x.com").isEmpty());
+        assertTrue(graph.getStatuses("b@x.com").isEmpty());
+    }
+
+    @Test
+    void statusesCoverPendingAndAccepted() {
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.addPending("r2", "a@x.com", "c@x.com");
+
+        assertEquals(Map.of("b@x.com", FollowGraph.ACCEPTED, "c@x.com", FollowGraph.PENDING),
+                graph.getStatuses("a@x.com"));
+    }
+
+    @Test
+    void snapshotConnectionsAreTheSortedUnionOfBothDirections() {
+        // Interned in this order: a=0, b=1, d=2, c=3
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.accept("r2", "b@x.com", "a@x.com");
+        graph.accept("r3", "d@x.com", "a@x.com");
+        graph.accept("r4", "a@x.com", "c@x.com");
+        graph.addPending("r5", "d@x.com", "b@x.com");
+
+        FollowGraph.Snapshot snapshot = graph.snapshot();
+
+        assertEquals(4, snapshot.size());
+        assertEquals("a@x.com", snapshot.getEmail(0));
+        assertArrayEquals(new int[] { 1, 2, 3 }, snapshot.getConnections(0));
+        assertArrayEquals(new int[] { 0 }, snapshot.getConnections(1));
+        assertArrayEquals(new int[] { 1 }, snapshot.getPendingOut(2));
+        assertArrayEquals(new int[0], snapshot.getPendingOut(0));
+    }
+
+    @Test
+    void listenersHearAboutAcceptedEdgesOnly() {
+        List<String> changes = new ArrayList<>();
+        graph.addListener((sender, receiver) -> changes.add(sender + "->" + receiver));
+
+        graph.addPending("r1", "a@x.com", "b@x.com");
+        graph.accept("r1", "a@x.com", "b@x.com");
+        graph.removeAccepted("a@x.com", "b@x.com");
+
+        assertEquals(List.of("a@x.com->b@x.com", "a@x.com->b@x.com"), changes);
+    }
+
+    @Test
+    void manyEdgesStaySortedAndSearchable() {
+        // Grows the sorted arrays well past their initial capacity, inserting out of order
+        for (int i = 99; i >= 0; i--) {
+            graph.accept("r" + i, "user" + i + "@x.com", "hub@x.com");
+        }
+        for (int i = 0; i < 100; i += 2) {
+            graph.removeAccepted("user" + i + "@x.com", "hub@x.com");
+        }
+
+        assertEquals(50, graph.getFollowerCount("hub@x.com"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : FollowGraph.ACCEPTED, graph.getStatus("user" + i + "@x.com", "hub@x.com"));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.designhive.repository;
+
+import com.designhive.entity.LearningPlan;
+import com.designhive.entity.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LearningPlanRepositoryTest {
+
+    @Test
+    void progressIsTheCompletedShareRoundedDown() {
+        assertEquals(0, LearningPlanRepository.calculateProgress(0, 0));
+        assertEquals(0, LearningPlanRepository.calculateProgress(3, 0));
+        assertEquals(0, LearningPlanRepository.calculateProgress(-1, 4));
+        assertEquals(33, LearningPlanRepository.calculateProgress(1, 3));
+        assertEquals(66, LearningPlanRepository.calculateProgress(2, 3));
+        assertEquals(100, LearningPlanRepository.calculateProgress(7, 7));
+    }
+
+    @Test
+    void legacyTasksAreAppendedAfterKeyedTasks() {
+        LearningPlan plan = new LearningPlan();
+        Task keyed = new Task("t1", "Keyed", null, true);
+        keyed.setPosition(4);
+        plan.setTasks(new ArrayList<>(List.of(keyed)));
+
+        LearningPlanRepository.mergeLegacyTasks(plan, List.of(
+                Map.of("id", "t1", "title", "Older copy", "completed", false),
+                Map.of("id", "t2", "title", "Second", "completed", true),
+                Map.of("title", "No id"),
+                "not a task"));
+
+        List<Task> tasks = plan.getTasks();
+        assertEquals(3, tasks.size());
+        // The keyed entry wins over the legacy copy of the same task
+        assertEquals("Keyed", tasks.get(0).getTitle());
+        assertEquals("t2", tasks.get(1).getId());
+        assertEquals(5, tasks.get(1).getPosition());
+        assertEquals("legacy-2", tasks.get(2).getId());
+        assertEquals(6, tasks.get(2).getPosition());
+        assertEquals(3, plan.getTotalTasks());
+        assertEquals(2, plan.getCompletedTasks());
+    }
+
+    @Test
+    void legacyIdsAreStableAcrossReads() {
+        List<Map<String, Object>> legacy = List.of(Map.of("title", "First"), Map.of("title", "Second"));
+        LearningPlan first = new LearningPlan();
+        LearningPlan second = new LearningPlan();
+
+        LearningPlanRepository.mergeLegacyTasks(first, legacy);
+        LearningPlanRepository.mergeLegacyTasks(second, legacy);
+
+        assertEquals(List.of("legacy-0", "legacy-1"), first.getTasks().stream().map(Task::getId).toList());
+        assertEquals(first.getTasks().stream().map(Task::getId).toList(),
+                second.getTasks().stream().map(Task::getId).toList());
+        assertEquals(0, first.getCompletedTasks());
+    }
+}
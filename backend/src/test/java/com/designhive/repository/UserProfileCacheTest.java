@@ -0,0 +1,92 @@
+package com.designhive.repository;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTest {
+
+    @Test
+    void servesPutDocumentsByEmailAndId() {
+        UserProfileCache cache = new UserProfileCache(300, 10);
+        DocumentSnapshot doc = user("a@x.com", "id-a");
+
+        cache.put(doc, cache.loadGeneration());
+
+        assertSame(doc, cache.getByEmail("a@x.com"));
+        assertSame(doc, cache.getById("id-a"));
+    }
+
+    @Test
+    void loadStartedBeforeInvalidationIsNotCached() {
+        UserProfileCache cache = new UserProfileCache(300, 10);
+        long loadGeneration = cache.loadGeneration();
+
+        cache.invalidate("a@x.com");
+        cache.put(user("a@x.com", "id-a"), loadGeneration);
+
+        assertNull(cache.getByEmail("a@x.com"));
+        assertEquals(1L, cache.getStats().get("staleLoads"));
+    }
+
+    @Test
+    void invalidatingOneEmailDoesNotBlockOthers() {
+        UserProfileCache cache = new UserProfileCache(300, 10);
+        long loadGeneration = cache.loadGeneration();
+
+        cache.invalidate("a@x.com");
+        cache.put(user("b@x.com", "id-b"), loadGeneration);
+
+        assertNotNull(cache.getByEmail("b@x.com"));
+    }
+
+    @Test
+    void forgottenInvalidationsStillRejectOlderLoads() {
+        UserProfileCache cache = new UserProfileCache(300, 2);
+        long loadGeneration = cache.loadGeneration();
+
+        cache.invalidate("a@x.com");
+        cache.invalidate("b@x.com");
+        cache.invalidate("c@x.com");
+        cache.put(user("a@x.com", "id-a"), loadGeneration);
+        cache.put(user("d@x.com", "id-d"), cache.loadGeneration());
+
+        assertNull(cache.getByEmail("a@x.com"));
+        assertNotNull(cache.getByEmail("d@x.com"));
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws InterruptedException {
+        UserProfileCache cache = new UserProfileCache(0, 10);
+        cache.put(user("a@x.com", "id-a"), cache.loadGeneration());
+
+        Thread.sleep(5);
+
+        assertNull(cache.getByEmail("a@x.com"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        UserProfileCache cache = new UserProfileCache(300, 2);
+        cache.put(user("a@x.com", "id-a"), cache.loadGeneration());
+        cache.put(user("b@x.com", "id-b"), cache.loadGeneration());
+        cache.getByEmail("a@x.com");
+        cache.put(user("c@x.com", "id-c"), cache.loadGeneration());
+
+        assertNotNull(cache.getByEmail("a@x.com"));
+        assertNull(cache.getByEmail("b@x.com"));
+        assertNull(cache.getById("id-b"));
+    }
+
+    private static DocumentSnapshot user(String email, String id) {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.exists()).thenReturn(true);
+        when(doc.getId()).thenReturn(email);
+        when(doc.getString("id")).thenReturn(id);
+        return doc;
+    }
+}
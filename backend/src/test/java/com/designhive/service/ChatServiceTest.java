@@ -0,0 +1,29 @@
+package com.designhive.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatServiceTest {
+
+    @Test
+    void participantsFromIdSplitsAroundAKnownEmail() {
+        assertEquals(List.of("a@x.com", "b@x.com"), ChatService.participantsFromId("a@x.com_b@x.com", "a@x.com"));
+        assertEquals(List.of("a@x.com", "b@x.com"), ChatService.participantsFromId("a@x.com_b@x.com", "b@x.com"));
+    }
+
+    @Test
+    void participantsFromIdHandlesUnderscoresInEmails() {
+        assertEquals(List.of("a_b@x.com", "c_d@x.com"), ChatService.participantsFromId("a_b@x.com_c_d@x.com", "c_d@x.com"));
+    }
+
+    @Test
+    void participantsFromIdRefusesToGuess() {
+        assertNull(ChatService.participantsFromId("a@x.com_b@x.com", null));
+        assertNull(ChatService.participantsFromId("a@x.com_b@x.com", "c@x.com"));
+        // Not in sorted order, so not an id this service would have built from these two
+        assertNull(ChatService.participantsFromId("b@x.com_a@x.com", "a@x.com"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.designhive.service;
+
+import com.designhive.repository.FollowGraph;
+import com.google.cloud.firestore.Firestore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class FollowSuggestionServiceTest {
+
+    private FollowGraph followGraph;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        followGraph = new FollowGraph(mock(Firestore.class), 0);
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void ranksFriendsOfFriendsByMutualConnections() {
+        // Interned in this order: a=0, b=1, c=2, x=3, y=4
+        followGraph.accept("r1", "a", "b");
+        followGraph.accept("r2", "a", "c");
+        followGraph.accept("r3", "x", "b");
+        followGraph.accept("r4", "x", "c");
+        followGraph.accept("r5", "y", "b");
+        FollowGraph.Snapshot graph = followGraph.snapshot();
+
+        List<FollowSuggestionService.Suggestion>[] results = FollowSuggestionService.score(
+                pool, graph, new FollowSuggestionService.Interests(graph.size()), new int[] { 0 });
+
+        List<FollowSuggestionService.Suggestion> suggestions = results[0];
+        assertEquals(2, suggestions.size());
+        assertEquals(3, suggestions.get(0).user);
+        assertEquals(2, suggestions.get(0).mutual);
+        assertEquals(2.0, suggestions.get(0).score);
+        assertEquals(4, suggestions.get(1).user);
+        assertEquals(1, suggestions.get(1).mutual);
+        // Only the requested users are scored
+        assertNull(results[1]);
+    }
+
+    @Test
+    void sharedInterestsBreakTies() {
+        // a=0, b=1, x=2, y=3; x and y are both one hop away through b
+        followGraph.accept("r1", "a", "b");
+        followGraph.accept("r2", "x", "b");
+        followGraph.accept("r3", "y", "b");
+        FollowGraph.Snapshot graph = followGraph.snapshot();
+        FollowSuggestionService.Interests interests = new FollowSuggestionService.Interests(graph.size());
+        interests.preferences[0] = new int[] { 1, 4, 7 };
+        interests.skills[0] = new int[] { 2 };
+        interests.preferences[3] = new int[] { 4, 7, 9 };
+        interests.skills[3] = new int[] { 2, 3 };
+
+        List<FollowSuggestionService.Suggestion> suggestions = FollowSuggestionService.score(
+                pool, graph, interests, new int[] { 0 })[0];
+
+        assertEquals(3, suggestions.get(0).user);
+        assertEquals(3, suggestions.get(0).shared);
+        assertEquals(1 + 2 * 0.5 + 1 * 0.5, suggestions.get(0).score);
+        assertEquals(2, suggestions.get(1).user);
+        assertEquals(1.0, suggestions.get(1).score);
+    }
+
+    @Test
+    void excludesSelfConnectionsAndPendingRequests() {
+        // a=0, b=1, c=2, x=3, y=4: a follows b and c, b and c know each other, a asked x already
+        followGraph.accept("r1", "a", "b");
+        followGraph.accept("r2", "a", "c");
+        followGraph.accept("r3", "b", "c");
+        followGraph.accept("r4", "x", "b");
+        followGraph.accept("r5", "y", "c");
+        followGraph.addPending("r6", "a", "x");
+        FollowGraph.Snapshot graph = followGraph.snapshot();
+
+        List<FollowSuggestionService.Suggestion> suggestions = FollowSuggestionService.score(
+                pool, graph, new FollowSuggestionService.Interests(graph.size()), new int[] { 0 })[0];
+
+        assertEquals(1, suggestions.size());
+        assertEquals(4, suggestions.get(0).user);
+    }
+
+    @Test
+    void scoresEveryUserAcrossSplitTasks() {
+        // A ring of users, large enough to split into several leaves: each user's only
+        // friends-of-friends are two steps away on either side
+        int size = 300;
+        for (int i = 0; i < size; i++) {
+            followGraph.accept("r" + i, "u" + i, "u" + ((i + 1) % size));
+        }
+        FollowGraph.Snapshot graph = followGraph.snapshot();
+        int[] users = new int[size];
+        for (int i = 0; i < size; i++) {
+            users[i] = i;
+        }
+
+        List<FollowSuggestionService.Suggestion>[] results = FollowSuggestionService.score(
+                pool, graph, new FollowSuggestionService.Interests(graph.size()), users);
+
+        for (int user = 0; user < size; user++) {
+            List<FollowSuggestionService.Suggestion> suggestions = results[user];
+            assertEquals(2, suggestions.size(), "user " + user);
+            for (FollowSuggestionService.Suggestion suggestion : suggestions) {
+                assertEquals(1, suggestion.mutual);
+                int distance = Math.abs(suggestion.user - user);
+                assertEquals(2, Math.min(distance, size - distance), "user " + user);
+            }
+        }
+    }
+}
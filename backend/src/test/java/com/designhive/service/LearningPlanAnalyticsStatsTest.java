@@ -0,0 +1,100 @@
+package com.designhive.service;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LearningPlanAnalyticsStatsTest {
+
+    @Test
+    void addPlanCountsProgressTasksAndStatus() {
+        LearningPlanAnalyticsService.Stats stats = new LearningPlanAnalyticsService.Stats();
+        stats.addPlan(plan(100, "completed", 4, 4, "2020-01-01"));
+        stats.addPlan(plan(50, "in-progress", 4, 2, "2000-01-01"));
+        stats.addPlan(plan(0, null, 0, 0, null));
+
+        Map<String, Object> map = stats.toMap();
+        assertEquals(3L, map.get("plans"));
+        assertEquals(1L, map.get("completedPlans"));
+        assertEquals(150L, map.get("progressSum"));
+        assertEquals(8L, map.get("totalTasks"));
+        assertEquals(6L, map.get("completedTasks"));
+        assertEquals(Map.of("completed", 1L, "in-progress", 1L, "unknown", 1L), map.get("statusCounts"));
+        // Finished plans are never overdue, so their end dates are not kept
+        assertEquals(Map.of("2000-01-01", 1L), map.get("openEndDates"));
+    }
+
+    @Test
+    void subtractingARollupUndoesAddingIt() {
+        LearningPlanAnalyticsService.Stats first = new LearningPlanAnalyticsService.Stats();
+        first.addPlan(plan(40, "in-progress", 5, 2, "2030-05-01"));
+        LearningPlanAnalyticsService.Stats second = new LearningPlanAnalyticsService.Stats();
+        second.addPlan(plan(100, "completed", 3, 3, null));
+        second.addPlan(plan(20, "in-progress", 5, 1, "2030-05-01"));
+
+        LearningPlanAnalyticsService.Stats total = new LearningPlanAnalyticsService.Stats().add(first).add(second);
+        assertEquals(3L, total.toMap().get("plans"));
+        assertEquals(Map.of("2030-05-01", 2L), total.toMap().get("openEndDates"));
+
+        total.subtract(second);
+
+        assertEquals(first.toMap(), total.toMap());
+    }
+
+    @Test
+    void countsThatReachZeroAreDropped() {
+        LearningPlanAnalyticsService.Stats user = new LearningPlanAnalyticsService.Stats();
+        user.addPlan(plan(100, "completed", 1, 1, null));
+        LearningPlanAnalyticsService.Stats total = new LearningPlanAnalyticsService.Stats().add(user);
+
+        total.subtract(user);
+
+        Map<String, Object> map = total.toMap();
+        assertEquals(0L, map.get("plans"));
+        assertEquals(Map.of(), map.get("statusCounts"));
+    }
+
+    @Test
+    void storedRollupReadsBackUnchanged() {
+        LearningPlanAnalyticsService.Stats stats = new LearningPlanAnalyticsService.Stats();
+        stats.addPlan(plan(60, "in-progress", 5, 3, "2031-02-03T10:00:00"));
+
+        LearningPlanAnalyticsService.Stats read = LearningPlanAnalyticsService.Stats.from(stats.toMap());
+
+        assertEquals(stats.toMap(), read.toMap());
+        assertEquals(0L, LearningPlanAnalyticsService.Stats.from(null).toMap().get("plans"));
+    }
+
+    @Test
+    void responseDerivesRatesAndOverduePlans() {
+        LearningPlanAnalyticsService.Stats stats = new LearningPlanAnalyticsService.Stats();
+        stats.addPlan(plan(100, "completed", 2, 2, null));
+        stats.addPlan(plan(50, "in-progress", 2, 1, LocalDate.now().minusDays(1).toString()));
+        stats.addPlan(plan(0, "planned", 0, 0, LocalDate.now().plusDays(1).toString()));
+        stats.addPlan(plan(0, "planned", 0, 0, "someday..."));
+
+        Map<String, Object> response = stats.toResponse();
+
+        assertEquals(0.25, response.get("completionRate"));
+        assertEquals(37.5, response.get("averageProgress"));
+        assertEquals(1L, response.get("overduePlans"));
+        assertEquals(0.75, response.get("taskCompletionRate"));
+        assertEquals(0.0, new LearningPlanAnalyticsService.Stats().toResponse().get("averageProgress"));
+    }
+
+    private static DocumentSnapshot plan(long progress, String status, long totalTasks, long completedTasks, String endDate) {
+        DocumentSnapshot plan = mock(DocumentSnapshot.class);
+        when(plan.getLong("progress")).thenReturn(progress);
+        when(plan.getString("status")).thenReturn(status);
+        when(plan.getLong("totalTasks")).thenReturn(totalTasks);
+        when(plan.getLong("completedTasks")).thenReturn(completedTasks);
+        when(plan.getString("endDate")).thenReturn(endDate);
+        return plan;
+    }
+}
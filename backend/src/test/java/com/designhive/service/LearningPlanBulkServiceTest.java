@@ -0,0 +1,88 @@
+package com.designhive.service;
+
+import com.designhive.entity.LearningPlan;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LearningPlanBulkServiceTest {
+
+    @Test
+    void importIdDependsOnlyOnTheLineContent() {
+        String line = "{\"userId\":\"u1\",\"title\":\"Plan\"}";
+
+        String id = LearningPlanBulkService.importId(line);
+
+        assertTrue(id.matches("import-[0-9a-f]{32}"), id);
+        assertEquals(id, LearningPlanBulkService.importId("  " + line + "\r"));
+        assertNotEquals(id, LearningPlanBulkService.importId("{\"userId\":\"u1\",\"title\":\"Other\"}"));
+    }
+
+    @Test
+    void validPlansPass() {
+        assertDoesNotThrow(() -> LearningPlanBulkService.validate(plan(null, "u1", "Title")));
+        assertDoesNotThrow(() -> LearningPlanBulkService.validate(plan("my-plan", "u1", "Title")));
+    }
+
+    @Test
+    void requiresUserAndTitle() {
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(null));
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan(null, null, "Title")));
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan(null, " ", "Title")));
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan(null, "u1", "")));
+    }
+
+    @Test
+    void rejectsIdsFirestoreCannotStore() {
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan("a/b", "u1", "Title")));
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan(".", "u1", "Title")));
+        assertThrows(IllegalArgumentException.class, () -> LearningPlanBulkService.validate(plan("..", "u1", "Title")));
+        assertThrows(IllegalArgumentException.class,
+                () -> LearningPlanBulkService.validate(plan("x".repeat(1501), "u1", "Title")));
+    }
+
+    @Test
+    void exportedTimestampsSurviveImport() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LearningPlan exported = plan("my-plan", "u1", "Title");
+        exported.setCreatedAt(Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 123_000_000));
+        exported.setUpdatedAt(Timestamp.ofTimeSecondsAndNanos(1_700_086_400L, 0));
+
+        LearningPlan imported = objectMapper.readValue(objectMapper.writeValueAsString(exported), LearningPlan.class);
+        Timestamp createdAt = imported.getCreatedAt();
+        Timestamp updatedAt = imported.getUpdatedAt();
+        new LearningPlanService().preparePlan(imported);
+        LearningPlanBulkService.keepTimestamps(imported, createdAt, updatedAt);
+
+        assertEquals(exported.getCreatedAt(), imported.getCreatedAt());
+        assertEquals(exported.getUpdatedAt(), imported.getUpdatedAt());
+    }
+
+    @Test
+    void planWithoutTimestampsIsStampedNow() {
+        LearningPlan plan = plan("my-plan", "u1", "Title");
+
+        new LearningPlanService().preparePlan(plan);
+        LearningPlanBulkService.keepTimestamps(plan, null, null);
+
+        assertNotNull(plan.getCreatedAt());
+        assertEquals(plan.getCreatedAt(), plan.getUpdatedAt());
+    }
+
+    @Test
+    void rejectsUnreadableTimestamps() {
+        assertThrows(JsonMappingException.class, () -> new ObjectMapper()
+                .readValue("{\"userId\":\"u1\",\"title\":\"Plan\",\"createdAt\":\"yesterday\"}", LearningPlan.class));
+    }
+
+    private static LearningPlan plan(String id, String userId, String title) {
+        LearningPlan plan = new LearningPlan();
+        plan.setId(id);
+        plan.setUserId(userId);
+        plan.setTitle(title);
+        return plan;
+    }
+}
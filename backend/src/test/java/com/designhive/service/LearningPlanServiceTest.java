@@ -0,0 +1,51 @@
+package com.designhive.service;
+
+import com.designhive.entity.LearningPlan;
+import com.designhive.entity.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LearningPlanServiceTest {
+
+    @Test
+    void preparePlanAssignsIdsPositionsAndCounters() {
+        LearningPlan plan = new LearningPlan();
+        plan.setTasks(new ArrayList<>(List.of(
+                new Task(null, "First", null, true),
+                new Task("kept", "Second", null, false),
+                new Task("", "Third", null, true))));
+
+        new LearningPlanService().preparePlan(plan);
+
+        List<Task> tasks = plan.getTasks();
+        assertNotNull(tasks.get(0).getId());
+        assertEquals("kept", tasks.get(1).getId());
+        assertFalse(tasks.get(2).getId().isEmpty());
+        assertNotEquals(tasks.get(0).getId(), tasks.get(2).getId());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(i, tasks.get(i).getPosition());
+        }
+        assertEquals(3, plan.getTotalTasks());
+        assertEquals(2, plan.getCompletedTasks());
+        assertEquals(66, plan.getProgress());
+        assertEquals("planned", plan.getStatus());
+        assertNotNull(plan.getCreatedAt());
+    }
+
+    @Test
+    void preparePlanWithoutTasks() {
+        LearningPlan plan = new LearningPlan();
+        plan.setStatus("in-progress");
+
+        new LearningPlanService().preparePlan(plan);
+
+        assertTrue(plan.getTasks().isEmpty());
+        assertEquals(0, plan.getTotalTasks());
+        assertEquals(0, plan.getProgress());
+        assertEquals("in-progress", plan.getStatus());
+    }
+}
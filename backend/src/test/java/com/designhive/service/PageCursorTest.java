@@ -0,0 +1,43 @@
+package com.designhive.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getTimestamp("timestamp")).thenReturn(Timestamp.ofTimeSecondsAndNanos(1700000000L, 123456789));
+        // Ids may contain the separator
+        when(doc.getId()).thenReturn("abc:def");
+
+        Object[] values = PageCursor.decode(PageCursor.encode(doc, "timestamp"));
+
+        assertEquals(Timestamp.ofTimeSecondsAndNanos(1700000000L, 123456789), values[0]);
+        assertEquals("abc:def", values[1]);
+    }
+
+    @Test
+    void missingTimestampEncodesAsEpoch() {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getId()).thenReturn("id");
+
+        Object[] values = PageCursor.decode(PageCursor.encode(doc, "timestamp"));
+
+        assertEquals(Timestamp.ofTimeSecondsAndNanos(0, 0), values[0]);
+        assertEquals("id", values[1]);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("bm8tY29sb25z")); // "no-colons"
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("eDp5Ono")); // "x:y:z"
+    }
+}
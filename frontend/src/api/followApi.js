@@ -24,6 +24,15 @@ export const getFollowers = (email) =>
 export const getFollowing = (email) =>
   axios.get("/follow/following", { params: { email } });
 
+export const getFollowCounts = (email) =>
+  axios.get("/follow/counts", { params: { email } });
+
+export const getFollowersPage = (email, limit, cursor) =>
+  axios.get("/follow/followers/page", { params: { email, limit, cursor } });
+
+export const getFollowingPage = (email, limit, cursor) =>
+  axios.get("/follow/following/page", { params: { email, limit, cursor } });
+
 export const removeFollower = (senderEmail, receiverEmail) =>
   axios.post("/follow/remove-follower", null, {
     params: { senderEmail, receiverEmail },
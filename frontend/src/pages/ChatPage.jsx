@@ -30,6 +30,7 @@ export default function ChatPage({ currentUser }) {
   const { chatId } = useParams();
   const navigate = useNavigate();
   const [messages, setMessages] = useState([]);
+  const [olderCursor, setOlderCursor] = useState(null);
   const [newMessage, setNewMessage] = useState("");
   const [userChats, setUserChats] = useState([]);
   const [searchTerm, setSearchTerm] = useState("");
@@ -53,27 +54,45 @@ export default function ChatPage({ currentUser }) {
     return new Date(timestamp);
   };
 
+  const formatMessages = (list) =>
+    Array.isArray(list)
+      ? list.map(msg => ({
+          ...msg,
+          timestamp: firestoreTimestampToDate(msg.timestamp)
+        }))
+      : [];
+
+  const loadOlderMessages = async () => {
+    if (!chatId || !olderCursor) return;
+
+    try {
+      const res = await axios.get(`/chats/${chatId}/messages`, {
+        params: { before: olderCursor }
+      });
+      setMessages((prev) => [...formatMessages(res.data.messages), ...prev]);
+      setOlderCursor(res.data.olderCursor);
+    } catch (err) {
+      console.error("Error loading older messages:", err);
+    }
+  };
+
   useEffect(() => {
     const fetchMessages = async () => {
       try {
         const res = await axios.get(`/chats/${chatId}/messages`);
-        const formattedMessages = Array.isArray(res.data) 
-          ? res.data.map(msg => ({
-              ...msg,
-              timestamp: firestoreTimestampToDate(msg.timestamp)
-            }))
-          : [];
-        setMessages(formattedMessages);
+        setMessages(formatMessages(res.data.messages));
+        setOlderCursor(res.data.olderCursor);
+        axios.put(`/chats/${chatId}/read/${currentUser.email}`).catch(() => {});
         
-        const otherEmail = chatId.split("_").find(email => email !== currentUser.email);
-        if (otherEmail) {
-          setOtherUserEmail(otherEmail);
-          try {
-            const userRes = await axios.get(`/user/email/${otherEmail}`);
-            setOtherUserName(userRes.data.username || otherEmail.split('@')[0]);
-          } catch {
-            setOtherUserName(otherEmail);
-          }
+        // The chat id cannot be split back into emails (they may contain "_"); ask the server
+        try {
+          const chatRes = await axios.get(`/chats/${chatId}/participants`, {
+            params: { viewer: currentUser.email }
+          });
+          setOtherUserEmail(chatRes.data.otherUser.email);
+          setOtherUserName(chatRes.data.otherUser.username);
+        } catch (err) {
+          console.error("Error fetching chat participants:", err);
         }
       } catch (err) {
         console.error("Error fetching messages:", err);
@@ -84,15 +103,70 @@ export default function ChatPage({ currentUser }) {
       fetchMessages();
     } else {
       setMessages([]);
+      setOlderCursor(null);
       setOtherUserEmail("");
       setOtherUserName("");
     }
   }, [chatId, currentUser.email]);
 
+  // Live updates for the open chat: messages added, edited or removed by anyone, and the
+  // chat itself being deleted. After a dropped connection the browser reconnects on its own
+  // and the latest page is re-read, since events sent while disconnected are not replayed.
+  useEffect(() => {
+    if (!chatId) return;
+
+    const source = new EventSource(`${axios.defaults.baseURL}/chats/${chatId}/stream`, {
+      withCredentials: true,
+    });
+    let reconnecting = false;
+
+    source.onopen = async () => {
+      if (!reconnecting) return;
+      reconnecting = false;
+      try {
+        const res = await axios.get(`/chats/${chatId}/messages`);
+        setMessages(formatMessages(res.data.messages));
+        setOlderCursor(res.data.olderCursor);
+      } catch (err) {
+        console.error("Error refreshing messages:", err);
+      }
+    };
+
+    source.onerror = () => {
+      reconnecting = true;
+    };
+
+    source.addEventListener("message", (e) => {
+      const event = JSON.parse(e.data);
+      if (event.type === "added") {
+        setMessages((prev) =>
+          prev.some((msg) => msg.messageId === event.messageId)
+            ? prev
+            : [...prev, ...formatMessages([{ messageId: event.messageId, sender: event.sender, text: event.text, timestamp: event.timestamp }])]
+        );
+        if (event.sender !== currentUser.email) {
+          axios.put(`/chats/${chatId}/read/${currentUser.email}`).catch(() => {});
+        }
+      } else if (event.type === "modified") {
+        setMessages((prev) =>
+          prev.map((msg) => (msg.messageId === event.messageId ? { ...msg, text: event.text } : msg))
+        );
+      } else if (event.type === "removed") {
+        setMessages((prev) => prev.filter((msg) => msg.messageId !== event.messageId));
+      } else if (event.type === "chatDeleted") {
+        source.close();
+        setUserChats((prev) => prev.filter((chat) => chat.chatId !== chatId));
+        navigate('/chat');
+      }
+    });
+
+    return () => source.close();
+  }, [chatId, currentUser.email]);
+
   useEffect(() => {
     const fetchUserChats = async () => {
       try {
-        const res = await axios.get(`/chats/started/${currentUser.email}`);
+        const res = await axios.get(`/chats/inbox/${currentUser.email}`);
         setUserChats(Array.isArray(res.data) ? res.data : []);
       } catch (err) {
         console.error("Error fetching user chats:", err);
@@ -108,9 +182,7 @@ export default function ChatPage({ currentUser }) {
     const fetchAvailableUsers = async () => {
       try {
         const res = await axios.get('/users');
-        const existingChatUsers = userChats.map(chat => 
-          chat.chatId.split("_").find(email => email !== currentUser.email)
-        );
+        const existingChatUsers = userChats.map(chat => chat.otherUser?.email);
         
         const filteredUsers = res.data.filter(user => 
           user.email !== currentUser.email && 
@@ -134,19 +206,17 @@ export default function ChatPage({ currentUser }) {
 
   const startNewChat = async (userEmail) => {
     try {
-      const chatIdentifier = [currentUser.email, userEmail].sort().join('_');
-      
-      const existingChat = userChats.find(chat => chat.chatId === chatIdentifier);
+      const existingChat = userChats.find(chat => chat.otherUser?.email === userEmail);
       
       if (existingChat) {
-        navigate(`/chat/${chatIdentifier}`);
+        navigate(`/chat/${existingChat.chatId}`);
       } else {
-        await axios.post('/chats', {
-          participants: [currentUser.email, userEmail],
-          startedBy: currentUser.email
+        const res = await axios.post('/chats/start', {
+          user1: currentUser.email,
+          user2: userEmail
         });
         
-        navigate(`/chat/${chatIdentifier}`);
+        navigate(`/chat/${res.data.chatId}`);
       }
       
       setShowUserSelection(false);
@@ -160,20 +230,26 @@ export default function ChatPage({ currentUser }) {
     if (!newMessage.trim() || !chatId) return;
 
     try {
-      await axios.post(`/chats/${chatId}/messages`, {
+      const res = await axios.post(`/chats/${chatId}/messages`, {
         sender: currentUser.email,
         text: newMessage,
       });
 
-      setMessages((prev) => [
-        ...prev,
-        {
-          sender: currentUser.email,
-          text: newMessage,
-          timestamp: new Date(),
-          messageId: Date.now(),
-        },
-      ]);
+      // The stream delivers the same message; the shared id keeps it from showing twice
+      const messageId = res.data.messageId;
+      setMessages((prev) =>
+        prev.some((msg) => msg.messageId === messageId)
+          ? prev
+          : [
+              ...prev,
+              {
+                sender: currentUser.email,
+                text: newMessage,
+                timestamp: new Date(),
+                messageId,
+              },
+            ]
+      );
       setNewMessage("");
       inputRef.current?.focus();
     } catch (err) {
@@ -201,13 +277,8 @@ export default function ChatPage({ currentUser }) {
       setIsEditing(null);
       setEditText("");
       const res = await axios.get(`/chats/${chatId}/messages`);
-      const formattedMessages = Array.isArray(res.data) 
-        ? res.data.map(msg => ({
-            ...msg,
-            timestamp: firestoreTimestampToDate(msg.timestamp)
-          }))
-        : [];
-      setMessages(formattedMessages);
+      setMessages(formatMessages(res.data.messages));
+      setOlderCursor(res.data.olderCursor);
     } catch (err) {
       console.error("Error updating message:", err);
     }
@@ -220,13 +291,8 @@ export default function ChatPage({ currentUser }) {
       await axios.delete(`/chats/${chatId}/messages/${messageId}`);
       setShowDeleteConfirm(null);
       const res = await axios.get(`/chats/${chatId}/messages`);
-      const formattedMessages = Array.isArray(res.data) 
-        ? res.data.map(msg => ({
-            ...msg,
-            timestamp: firestoreTimestampToDate(msg.timestamp)
-          }))
-        : [];
-      setMessages(formattedMessages);
+      setMessages(formatMessages(res.data.messages));
+      setOlderCursor(res.data.olderCursor);
     } catch (err) {
       console.error("Error deleting message:", err);
     }
@@ -274,8 +340,9 @@ export default function ChatPage({ currentUser }) {
 
   const filteredChats = userChats.filter(chat => {
     if (!chat?.chatId) return false;
-    const other = chat.chatId.split("_").find(email => email !== currentUser.email);
-    return other.toLowerCase().includes(searchTerm.toLowerCase());
+    const term = searchTerm.toLowerCase();
+    return (chat.otherUser?.email || "").toLowerCase().includes(term) ||
+      (chat.otherUser?.username || "").toLowerCase().includes(term);
   });
 
   const filteredAvailableUsers = availableUsers.filter(user => 
@@ -330,7 +397,7 @@ export default function ChatPage({ currentUser }) {
             <ul>
               {filteredChats.map((chat) => {
                 if (!chat?.chatId) return null;
-                const other = chat.chatId.split("_").find(email => email !== currentUser.email);
+                const other = chat.otherUser?.email;
                 const isActive = chatId === chat.chatId;
 
                 return (
@@ -346,11 +413,16 @@ export default function ChatPage({ currentUser }) {
                     >
                       <FaUserCircle className="text-gray-400 text-xl mr-3" />
                       <div className="truncate flex-1">
-                        <p className="font-medium text-gray-800 truncate">{other}</p>
+                        <p className="font-medium text-gray-800 truncate">{chat.otherUser?.username || other}</p>
                         <p className="text-xs text-gray-500 truncate">
                           {chat.lastMessage || "No messages yet"}
                         </p>
                       </div>
+                      {chat.unreadCount > 0 && !isActive && (
+                        <span className="ml-2 bg-amber-500 text-white text-xs px-2 py-0.5 rounded-full">
+                          {chat.unreadCount}
+                        </span>
+                      )}
                     </motion.button>
                     <button
                       onClick={(e) => {
@@ -401,6 +473,16 @@ export default function ChatPage({ currentUser }) {
                 </div>
               ) : (
                 <div className="max-w-4xl mx-auto space-y-4">
+                  {olderCursor && (
+                    <div className="text-center">
+                      <button
+                        onClick={loadOlderMessages}
+                        className="text-sm text-amber-600 hover:text-amber-700"
+                      >
+                        Load earlier messages
+                      </button>
+                    </div>
+                  )}
                   {messages.map((msg, index) => (
                     <div key={msg.messageId} className="relative">
                       {formatDateHeader(msg.timestamp, index)}
@@ -534,7 +616,7 @@ export default function ChatPage({ currentUser }) {
                 {filteredChats.length > 0 ? (
                   <ul className="space-y-2">
                     {filteredChats.slice(0, 3).map(chat => {
-                      const other = chat.chatId.split("_").find(email => email !== currentUser.email);
+                      const other = chat.otherUser?.username || chat.otherUser?.email;
                       return (
                         <li key={chat.chatId}>
                           <button
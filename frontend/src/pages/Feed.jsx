@@ -8,25 +8,28 @@ import ProfileCard from "./ProfileCard";
 import { FiLoader } from "react-icons/fi";
 import { GiHoneycomb, GiBee } from "react-icons/gi";
 
+const FEED_PAGE_SIZE = 20;
+
 const Feed = () => {
   const [posts, setPosts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [user, setUser] = useState(null);
   const [isLoadingPosts, setIsLoadingPosts] = useState(false);
   const [isLoadingUser, setIsLoadingUser] = useState(false);
 
+  // The feed comes a page at a time, newest first; nextCursor asks for the page after it
+  const fetchFeedPage = (cursor) =>
+    axios.get(`${import.meta.env.VITE_API_BASE_URL}/posts/feed`, {
+      params: { limit: FEED_PAGE_SIZE, cursor: cursor || undefined },
+    });
+
   const fetchPosts = async () => {
     try {
       setIsLoadingPosts(true);
-      const res = await axios.get(`${import.meta.env.VITE_API_BASE_URL}/posts`);
-      console.log("📦 First post from backend:", res.data[0]);
-
-      const sortedPosts = res.data.sort((a, b) => {
-        const dateA = new Date(a.updatedAt || a.createdAt);
-        const dateB = new Date(b.updatedAt || b.createdAt);
-        return dateB - dateA;
-      });
-
-      setPosts(sortedPosts);
+      const res = await fetchFeedPage(null);
+      setPosts(res.data.posts || []);
+      setNextCursor(res.data.nextCursor);
     } catch (err) {
       console.error("❌ Error fetching posts:", err);
     } finally {
@@ -34,6 +37,23 @@ const Feed = () => {
     }
   };
 
+  const loadMorePosts = async () => {
+    if (!nextCursor || isLoadingMore) return;
+    try {
+      setIsLoadingMore(true);
+      const res = await fetchFeedPage(nextCursor);
+      setPosts((prev) => {
+        const seen = new Set(prev.map((post) => post.id));
+        return [...prev, ...(res.data.posts || []).filter((post) => !seen.has(post.id))];
+      });
+      setNextCursor(res.data.nextCursor);
+    } catch (err) {
+      console.error("❌ Error fetching more posts:", err);
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
   const fetchUserFromLocalStorage = () => {
     try {
       setIsLoadingUser(true);
@@ -141,6 +161,15 @@ const Feed = () => {
                         }
                       />
                     ))}
+                    {nextCursor && (
+                      <button
+                        onClick={loadMorePosts}
+                        disabled={isLoadingMore}
+                        className="w-full py-2 bg-amber-100 text-amber-800 rounded-xl border border-amber-200 hover:bg-amber-200 transition-colors disabled:opacity-60"
+                      >
+                        {isLoadingMore ? "Loading..." : "Load more posts"}
+                      </button>
+                    )}
                   </div>
                 ) : (
                   <div className="bg-amber-100 p-6 rounded-xl shadow-lg text-center border border-amber-200">
@@ -18,7 +18,7 @@ const HomePage = () => {
     const fetchPlans = async () => {
       try {
         const response = await fetch(
-          `http://localhost:9090/api/learning-plans/user/${user.id}` // Use user.email or user.id
+          `http://localhost:9090/api/learning-plans/user/${user.id}/summary` // Headers and progress only
         );
         if (!response.ok) throw new Error("Failed to fetch plans");
         const data = await response.json();
@@ -82,22 +82,14 @@ const LearningPlanPage = () => {
   };
 
   const handleTaskToggle = async (taskId) => {
-    const updatedTasks = plan.tasks.map((task) =>
-      task.id === taskId ? { ...task, completed: !task.completed } : task
-    );
-
-    const updatedPlan = {
-      ...plan,
-      tasks: updatedTasks,
-      progress: calculateProgress(updatedTasks),
-    };
+    const task = plan.tasks.find((t) => t.id === taskId);
 
     try {
-      await axios.put(
-        `http://localhost:9090/api/learning-plans/${id}`,
-        updatedPlan
+      const response = await axios.put(
+        `http://localhost:9090/api/learning-plans/${id}/tasks/${taskId}`,
+        { ...task, completed: !task.completed }
       );
-      setPlan(updatedPlan);
+      setPlan(response.data);
       setSuccessMessage("Task updated successfully");
       setShowSuccess(true);
       setTimeout(() => setShowSuccess(false), 1500);
@@ -112,23 +104,17 @@ const LearningPlanPage = () => {
     if (!validateTaskForm()) return;
 
     const task = {
-      id: crypto.randomUUID(),
       title: newTask.title,
       description: newTask.description,
       completed: false,
     };
 
-    const updatedPlan = {
-      ...plan,
-      tasks: [...plan.tasks, task],
-    };
-
     try {
-      await axios.put(
-        `http://localhost:9090/api/learning-plans/${id}`,
-        updatedPlan
+      const response = await axios.post(
+        `http://localhost:9090/api/learning-plans/${id}/tasks`,
+        task
       );
-      setPlan(updatedPlan);
+      setPlan(response.data);
       setNewTask({ title: "", description: "" });
       setSuccessMessage("Task added successfully");
       setShowSuccess(true);
@@ -148,9 +134,8 @@ const LearningPlanPage = () => {
     };
 
     try {
-      await axios.put(
-        `http://localhost:9090/api/learning-plans/${id}`,
-        updatedPlan
+      await axios.delete(
+        `http://localhost:9090/api/learning-plans/${id}/tasks/${taskId}`
       );
       setPlan(updatedPlan);
       setSuccessMessage("Task deleted successfully");
@@ -23,7 +23,11 @@ const ManagePosts = () => {
   const fetchMyPosts = async () => {
     try {
       setIsLoading(true);
-      const res = await axios.get(`${import.meta.env.VITE_API_BASE_URL}/posts`);
+      if (!user?.id) {
+        setMyPosts([]);
+        return;
+      }
+      const res = await axios.get(`${import.meta.env.VITE_API_BASE_URL}/posts/user/${user.id}`);
       const allPosts = res.data;
 
       const normalizeTags = (tags) =>
@@ -5,13 +5,13 @@ import { useAuth } from "../auth/useAuth";
 
 export default function MyChats() {
   const { user } = useAuth();
-  const [chatIds, setChatIds] = useState([]);
+  const [chats, setChats] = useState([]);
 
   useEffect(() => {
     const fetchChats = async () => {
       try {
         const res = await axios.get(`/chats/user/${user.email}`);
-        setChatIds(res.data);
+        setChats(Array.isArray(res.data) ? res.data : []);
       } catch (err) {
         console.error("Error fetching chats", err);
       }
@@ -23,19 +23,25 @@ export default function MyChats() {
   return (
     <div className="max-w-2xl mx-auto p-4">
       <h2 className="text-2xl font-bold mb-4">💬 Your Chats</h2>
-      {chatIds.length === 0 ? (
+      {chats.length === 0 ? (
         <p className="text-gray-500">No chats yet.</p>
       ) : (
         <ul className="space-y-2">
-          {chatIds.map((id) => {
-            const otherUser = id
-              .split("_")
+          {chats.map((chat) => {
+            const otherUser = (chat.users || chat.chatId.split("_"))
               .find((email) => email !== user.email);
             return (
-              <li key={id} className="flex justify-between items-center p-2 bg-white shadow rounded">
-                <span>Chat with: <strong>{otherUser}</strong></span>
+              <li key={chat.chatId} className="flex justify-between items-center p-2 bg-white shadow rounded">
+                <span>
+                  Chat with: <strong>{otherUser}</strong>
+                  {chat.unreadCount > 0 && (
+                    <span className="ml-2 bg-amber-500 text-white text-xs px-2 py-0.5 rounded-full">
+                      {chat.unreadCount}
+                    </span>
+                  )}
+                </span>
                 <Link
-                  to={`/chat/${id}`}
+                  to={`/chat/${chat.chatId}`}
                   className="bg-blue-600 text-white px-3 py-1 rounded"
                 >
                   Open Chat
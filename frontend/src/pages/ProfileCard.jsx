@@ -6,13 +6,11 @@ import defaultProfilePic from "../assets/default-profile.png";
 import { useEffect, useState } from "react";
 import axios from "axios";
 import {
-  getFollowers,
-  getFollowing,
+  getFollowCounts,
 } from "../api/followApi";
 
 const ProfileCard = ({ user }) => {
-  const [followers, setFollowers] = useState([]);
-  const [following, setFollowing] = useState([]);
+  const [counts, setCounts] = useState({ followers: 0, following: 0 });
   const [loading, setLoading] = useState(true);
 
   const handleImgError = (e) => {
@@ -35,13 +33,8 @@ const ProfileCard = ({ user }) => {
       try {
         if (!user?.email) return;
         
-        const [followersRes, followingRes] = await Promise.all([
-          getFollowers(user.email),
-          getFollowing(user.email)
-        ]);
-
-        setFollowers(followersRes.data);
-        setFollowing(followingRes.data);
+        const countsRes = await getFollowCounts(user.email);
+        setCounts(countsRes.data);
 
       } catch (error) {
         console.error("Error loading profile data:", error);
@@ -83,13 +76,13 @@ const ProfileCard = ({ user }) => {
           </div>
           <div className="text-center px-2">
             <p className="font-bold text-amber-900">
-              {loading ? '--' : followers.length}
+              {loading ? '--' : counts.followers}
             </p>
             <p className="text-xs text-amber-600">Followers</p>
           </div>
           <div className="text-center px-2">
             <p className="font-bold text-amber-900">
-              {loading ? '--' : following.length}
+              {loading ? '--' : counts.following}
             </p>
             <p className="text-xs text-amber-600">Following</p>
           </div>